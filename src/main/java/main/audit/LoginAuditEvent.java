@@ -0,0 +1,43 @@
+/**
+ * Evento inmutable de auditoría de login.
+ * <p>
+ * Registra el usuario, el instante, la IP de origen y el resultado de cada intento de login.
+ * <br>
+ * Immutable login audit event. Records the user, instant, source IP and outcome of each login attempt.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.audit;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class LoginAuditEvent {
+
+    /**
+     * Nombre de usuario usado en el intento / Username used in the attempt
+     */
+    private final String userName;
+
+    /**
+     * Instante del intento / Instant of the attempt
+     */
+    private final Instant occurredAt;
+
+    /**
+     * IP de origen (puede ser nula) / Source IP (may be null)
+     */
+    private final String ip;
+
+    /**
+     * true si el login fue exitoso / true if the login succeeded
+     */
+    private final boolean success;
+}
@@ -0,0 +1,121 @@
+/**
+ * Buffer circular acotado y sin bloqueos para eventos de auditoría.
+ * <p>
+ * Múltiples productores (hilos de petición) publican eventos con CAS y un único consumidor
+ * (el escritor en segundo plano) los drena. Si el buffer está lleno, {@link #offer} retorna false
+ * de inmediato en lugar de bloquear al productor.
+ * <br>
+ * Bounded lock-free ring buffer for audit events. Multiple producers (request threads) publish
+ * events with CAS and a single consumer (the background writer) drains them. When the buffer is full,
+ * {@link #offer} returns false immediately instead of blocking the producer.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class LoginAuditRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<LoginAuditEvent> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * Crea el buffer con la capacidad indicada, redondeada a potencia de dos.
+     * <br>
+     * Creates the buffer with the given capacity, rounded up to a power of two.
+     *
+     * @param requestedCapacity capacidad deseada / requested capacity
+     */
+    public LoginAuditRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("La capacidad debe ser al menos 2");
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Publica un evento sin bloquear.
+     * <br>
+     * Publishes an event without blocking.
+     *
+     * @param event evento / event
+     * @return false si el buffer está lleno / false if the buffer is full
+     */
+    public boolean offer(LoginAuditEvent event) {
+        long pos = tail.get();
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.lazySet(index, event);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Drena hasta {@code max} eventos en la lista destino. Solo debe llamarlo un único consumidor.
+     * <br>
+     * Drains up to {@code max} events into the target list. Must only be called by a single consumer.
+     *
+     * @param target lista destino / target list
+     * @param max máximo de eventos / maximum events
+     * @return número de eventos drenados / number of drained events
+     */
+    public int drainTo(List<LoginAuditEvent> target, int max) {
+        long current = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (current & mask);
+            if (sequences.get(index) != current + 1) {
+                break;
+            }
+            target.add(slots.get(index));
+            slots.lazySet(index, null);
+            sequences.set(index, current + capacity);
+            current++;
+            drained++;
+        }
+        head = current;
+        return drained;
+    }
+
+    /**
+     * Número aproximado de eventos pendientes.
+     * <br>
+     * Approximate number of pending events.
+     *
+     * @return eventos pendientes / pending events
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
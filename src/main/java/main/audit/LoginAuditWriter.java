@@ -0,0 +1,178 @@
+/**
+ * Escritor en segundo plano del registro de auditoría de login.
+ * <p>
+ * Los hilos de petición publican eventos en un {@link LoginAuditRingBuffer} sin bloquear; un hilo
+ * dedicado los drena y los inserta con JDBC en lote cuando se alcanza el tamaño de lote o el intervalo
+ * de vaciado. Si el buffer se llena, el evento se descarta y se contabiliza en la métrica
+ * {@code audit.login.dropped}, de modo que el login nunca espera a la base de datos.
+ * <br>
+ * Background writer for the login audit trail. Request threads publish events to a
+ * {@link LoginAuditRingBuffer} without blocking; a dedicated thread drains them and inserts them with
+ * JDBC batches once the batch size or the flush interval is reached. When the buffer is full the event
+ * is dropped and counted in the {@code audit.login.dropped} metric, so login never waits on the database.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.audit;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+@Component
+public class LoginAuditWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAuditWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO login_audit (user_name, occurred_at, ip, success) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${audit.login.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${audit.login.batch-size:500}")
+    private int batchSize;
+
+    @Value("${audit.login.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private LoginAuditRingBuffer buffer;
+    private Counter droppedCounter;
+    private Counter writtenCounter;
+    private Counter failedCounter;
+    private final AtomicLong droppedSinceLastLog = new AtomicLong();
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    private Thread writerThread;
+
+    @PostConstruct
+    public void init() {
+        buffer = new LoginAuditRingBuffer(bufferCapacity);
+        droppedCounter = meterRegistry.counter("audit.login.dropped");
+        writtenCounter = meterRegistry.counter("audit.login.written");
+        failedCounter = meterRegistry.counter("audit.login.failed");
+        Gauge.builder("audit.login.buffer.size", buffer, LoginAuditRingBuffer::size)
+                .description("Eventos de auditoría pendientes de escribir / Pending audit events")
+                .register(meterRegistry);
+
+        running = true;
+        writerThread = new Thread(this::run, "login-audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Publica un evento de auditoría sin bloquear al hilo llamador.
+     * <br>
+     * Publishes an audit event without blocking the calling thread.
+     *
+     * @param event evento de auditoría / audit event
+     * @return false si el evento se descartó por buffer lleno / false if the event was dropped because the buffer is full
+     */
+    public boolean publish(LoginAuditEvent event) {
+        if (buffer.offer(event)) {
+            // Despertar al escritor solo cuando ya hay un lote completo / Wake the writer only once a full batch is waiting
+            if (writerParked && buffer.size() >= batchSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return true;
+        }
+        droppedCounter.increment();
+        droppedSinceLastLog.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Detiene el hilo escritor tras vaciar los eventos pendientes.
+     * <br>
+     * Stops the writer thread after flushing pending events.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        List<LoginAuditEvent> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        long lastFlush = System.nanoTime();
+
+        while (running || buffer.size() > 0) {
+            int drained = buffer.drainTo(batch, batchSize - batch.size());
+            long now = System.nanoTime();
+            boolean due = now - lastFlush >= flushIntervalNanos;
+
+            if (batch.size() >= batchSize || (due && !batch.isEmpty())) {
+                flush(batch);
+                batch.clear();
+                lastFlush = now;
+            } else if (due) {
+                lastFlush = now;
+            } else if (drained == 0) {
+                // Sin trabajo: dormir hasta el próximo vaciado o hasta que se acumule un lote
+                // Idle: sleep until the next flush is due or a full batch accumulates
+                writerParked = true;
+                if (running && buffer.size() + batch.size() < batchSize) {
+                    LockSupport.parkNanos(this, flushIntervalNanos - (now - lastFlush));
+                }
+                writerParked = false;
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<LoginAuditEvent> batch) {
+        long dropped = droppedSinceLastLog.getAndSet(0);
+        if (dropped > 0) {
+            logger.warn("Buffer de auditoría lleno, eventos descartados: " + dropped);
+        }
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (LoginAuditEvent event : batch) {
+            args.add(new Object[] {
+                    event.getUserName(),
+                    Timestamp.from(event.getOccurredAt()),
+                    event.getIp(),
+                    event.isSuccess() });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, args);
+            writtenCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            logger.error("No se pudo escribir el lote de auditoría (" + batch.size() + " eventos)", e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Configuración del enrutamiento de lecturas a réplicas.
+ * <p>
+ * Solo se activa con {@code replicas.enabled=true}. Reemplaza el datasource de Spring Boot por un
+ * {@link ReplicaRoutingDataSource} envuelto en {@link LazyConnectionDataSourceProxy}, y revisa
+ * periódicamente la salud y el retraso de las réplicas.
+ * <br>
+ * Read replica routing configuration. Only active with {@code replicas.enabled=true}. Replaces Spring
+ * Boot's datasource with a {@link ReplicaRoutingDataSource} wrapped in a
+ * {@link LazyConnectionDataSourceProxy}, and periodically checks replica health and lag.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import main.replica.ReadYourWritesTracker;
+import main.replica.ReplicaRoutingDataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Value("${spring.datasource.url}")
+    private String primaryUrl;
+
+    @Value("${spring.datasource.username:sa}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    @Value("${replicas.urls}")
+    private String[] replicaUrls;
+
+    @Value("${replicas.read-your-writes-ms:5000}")
+    private long readYourWritesMillis;
+
+    @Value("${replicas.max-lag-ms:2000}")
+    private long maxLagMillis;
+
+    @Value("${replicas.probe-query:}")
+    private String probeQuery;
+
+    @Value("${replicas.lag-query:}")
+    private String lagQuery;
+
+    @Value("${replicas.failure-threshold:3}")
+    private int failureThreshold;
+
+    private ReplicaRoutingDataSource routingDataSource;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(readYourWritesMillis);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        List<DataSource> replicas = new ArrayList<>(replicaUrls.length);
+        for (String url : replicaUrls) {
+            replicas.add(build(url.trim()));
+        }
+        routingDataSource = new ReplicaRoutingDataSource(build(primaryUrl), replicas, readYourWritesTracker,
+                meterRegistry);
+        routingDataSource.setProbeQuery(probeQuery);
+        routingDataSource.setLagQuery(lagQuery);
+        routingDataSource.setMaxLagMillis(maxLagMillis);
+        routingDataSource.setFailureThreshold(failureThreshold);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Scheduled(fixedDelayString = "${replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.checkReplicas();
+        }
+    }
+
+    /**
+     * Cierra los pools del primario y de las réplicas.
+     * <br>
+     * Closes the primary and replica pools.
+     */
+    @PreDestroy
+    public void closePools() {
+        for (HikariDataSource pool : pools) {
+            pool.close();
+        }
+        pools.clear();
+    }
+
+    private DataSource build(String url) {
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        pools.add(pool);
+        return pool;
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * Configuración de tareas programadas.
+ * <p>
+ * Habilita {@code @Scheduled} para las tareas periódicas en segundo plano, como el volcado de la
+ * actividad de usuarios.
+ * <br>
+ * Scheduled task configuration. Enables {@code @Scheduled} for periodic background tasks, such as
+ * flushing user activity.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -11,12 +11,14 @@
  */
 package main.config;
 
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import main.security.ConcurrencyLimitFilter;
 import main.security.JwtAuthenticationFilter;
 
 @Configuration
@@ -32,8 +34,27 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * Evita que Spring Boot registre el limitador también como filtro de servlet: solo debe ejecutarse
+     * dentro de la cadena de seguridad, justo antes del filtro JWT.
+     * <br>
+     * Prevents Spring Boot from also registering the limiter as a servlet filter: it must only run inside
+     * the security chain, right before the JWT filter.
+     *
+     * @param concurrencyLimitFilter filtro de concurrencia / concurrency filter
+     * @return registro deshabilitado / disabled registration
+     */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(
+            ConcurrencyLimitFilter concurrencyLimitFilter) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(concurrencyLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, ConcurrencyLimitFilter concurrencyLimitFilter)
+            throws Exception {
         http
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
@@ -43,10 +64,13 @@ public class SecurityConfig {
                         .requestMatchers("/v3/api-docs/**").permitAll()
                         .requestMatchers("/swagger-ui.html").permitAll()
                         .requestMatchers("/webjars/**").permitAll()
+                        .requestMatchers("/api/admin/**").hasAuthority("ADMIN")
                         .anyRequest().authenticated())
                 .formLogin(form -> form.disable())
                 .httpBasic(httpBasic -> httpBasic.disable())
-                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class)
+                // Descartar carga antes de validar el JWT (que consulta la base de datos)
+                .addFilterBefore(concurrencyLimitFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 
@@ -0,0 +1,77 @@
+/**
+ * Configuración del almacenamiento de usuarios particionado.
+ * <p>
+ * Solo se activa con {@code sharding.enabled=true}; crea un datasource por URL de
+ * {@code sharding.urls} y el {@link ShardedUserStore} que los enruta.
+ * <br>
+ * Sharded user storage configuration. Only active with {@code sharding.enabled=true}; creates one
+ * datasource per URL in {@code sharding.urls} and the {@link ShardedUserStore} routing across them.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PreDestroy;
+import main.sharding.ShardedUserStore;
+
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Value("${sharding.urls}")
+    private String[] urls;
+
+    @Value("${sharding.username:sa}")
+    private String username;
+
+    @Value("${sharding.password:}")
+    private String password;
+
+    @Value("${sharding.virtual-nodes:64}")
+    private int virtualNodes;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public ShardedUserStore shardedUserStore() {
+        List<DataSource> dataSources = new ArrayList<>(urls.length);
+        for (String url : urls) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            pools.add(pool);
+            dataSources.add(pool);
+        }
+        return new ShardedUserStore(dataSources, virtualNodes);
+    }
+
+    /**
+     * Cierra los pools de los shards; el store ya se cerró porque depende de esta configuración.
+     * <br>
+     * Closes the shard pools; the store is already closed because it depends on this configuration.
+     */
+    @PreDestroy
+    public void closePools() {
+        for (HikariDataSource pool : pools) {
+            pool.close();
+        }
+        pools.clear();
+    }
+}
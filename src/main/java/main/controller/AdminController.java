@@ -0,0 +1,124 @@
+/**
+ * Controlador REST para operaciones de administración de usuarios.
+ * <p>
+ * Expone la búsqueda por prefijo para la consola de administración, la baja lógica masiva y la purga
+ * por lotes de usuarios dados de baja. Requiere la autoridad ADMIN.
+ * <br>
+ * REST controller for user administration operations. Exposes prefix search for the admin console,
+ * bulk soft deletion and batched purging of soft-deleted users. Requires the ADMIN authority.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.controller;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import main.dto.PurgeProgress;
+import main.dto.UserDTO;
+import main.service.UserPurgeService;
+import main.service.UserSearchIndex;
+import main.service.UserService;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private static final int MAX_RESULTS = 50;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserPurgeService userPurgeService;
+
+    /**
+     * Busca usuarios por prefijo de nombre de usuario o email.
+     * <br>
+     * Searches users by username or email prefix.
+     *
+     * @param q prefijo buscado / searched prefix
+     * @param limit máximo de resultados / maximum results
+     * @return usuarios encontrados / found users
+     */
+    @Operation(summary = "Buscar usuarios por prefijo", description = "Búsqueda mientras se escribe sobre nombres de usuario y emails, servida desde un índice en memoria.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Resultados de la búsqueda"),
+            @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN")
+    })
+    @GetMapping("/users/search")
+    public ResponseEntity<List<UserDTO>> searchUsers(@RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(userSearchIndex.search(q, Math.min(limit, MAX_RESULTS)));
+    }
+
+    /**
+     * Da de baja lógica a varios usuarios.
+     * <br>
+     * Soft-deletes several users.
+     *
+     * @param ids ids de usuario / user ids
+     * @return número de usuarios dados de baja / number of soft-deleted users
+     */
+    @Operation(summary = "Baja lógica masiva", description = "Marca como eliminados los usuarios indicados con una sola sentencia.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Usuarios dados de baja"),
+            @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN")
+    })
+    @DeleteMapping("/users")
+    public ResponseEntity<Map<String, Integer>> deleteUsers(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(Map.of("deleted", userService.softDeleteUsers(ids)));
+    }
+
+    /**
+     * Inicia la purga por lotes de usuarios dados de baja.
+     * <br>
+     * Starts the batched purge of soft-deleted users.
+     *
+     * @param deletedBefore purga usuarios dados de baja antes de este instante (por defecto ahora) / purge users soft-deleted before this instant (defaults to now)
+     * @return progreso inicial / initial progress
+     */
+    @Operation(summary = "Purgar usuarios dados de baja", description = "Elimina físicamente, por lotes y con pausas, los usuarios dados de baja y sus roles.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Purga iniciada o ya en curso"),
+            @ApiResponse(responseCode = "403", description = "Requiere rol ADMIN")
+    })
+    @PostMapping("/users/purge")
+    public ResponseEntity<PurgeProgress> purgeUsers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant deletedBefore) {
+        Instant cutoff = deletedBefore != null ? deletedBefore : Instant.now();
+        return ResponseEntity.status(202).body(userPurgeService.startPurge(cutoff));
+    }
+
+    /**
+     * Consulta el progreso de la última purga.
+     * <br>
+     * Gets the progress of the latest purge.
+     *
+     * @return progreso / progress
+     */
+    @Operation(summary = "Progreso de la purga", description = "Devuelve el estado de la última purga de usuarios.")
+    @GetMapping("/users/purge")
+    public ResponseEntity<PurgeProgress> getPurgeProgress() {
+        return ResponseEntity.ok(userPurgeService.getProgress());
+    }
+}
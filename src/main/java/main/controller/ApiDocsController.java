@@ -0,0 +1,168 @@
+/**
+ * Controlador que sirve el documento OpenAPI pregenerado en el perfil de producción.
+ * <p>
+ * El build lo genera con springdoc en {@code prepare-package} y lo empaqueta en
+ * {@code openapi/openapi.json}; la copia versionada en {@code src/main/resources} (que
+ * {@code OpenApiDocumentTest} compara con los controladores) solo se usa si se arranca sin empaquetar.
+ * Al arrancar se carga una sola vez, sin la URL de servidor del build, se comprime con gzip y se
+ * calcula su ETag, de modo que cada petición solo copia un arreglo de bytes. En producción el escaneo de controladores de springdoc está desactivado (ver
+ * {@code application-prod.yml}).
+ * <br>
+ * Controller serving the pre-generated OpenAPI document in the production profile. The build generates
+ * it with springdoc during {@code prepare-package} and packages it as {@code openapi/openapi.json}; the
+ * committed copy under {@code src/main/resources} (which {@code OpenApiDocumentTest} checks against the
+ * controllers) is only used when running unpackaged. It is loaded once at startup, without the build's
+ * server URL, gzip-compressed and its ETag computed, so each request only copies a byte array. In production springdoc's controller scanning
+ * is disabled (see {@code application-prod.yml}).
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.annotation.PostConstruct;
+
+@Hidden
+@Profile("prod")
+@RestController
+public class ApiDocsController {
+
+    static final String DOCUMENT_LOCATION = "openapi/openapi.json";
+
+    private static final CacheControl DOCS_CACHE = CacheControl.noCache().cachePublic();
+
+    private byte[] json;
+    private byte[] gzipJson;
+    private String etag;
+    private String gzipEtag;
+
+    @PostConstruct
+    public void init() throws IOException, NoSuchAlgorithmException {
+        ClassPathResource resource = new ClassPathResource(DOCUMENT_LOCATION);
+        if (!resource.exists()) {
+            // Se versiona en src/main/resources: si falta, el artefacto está mal construido
+            // It is committed under src/main/resources: if missing, the artifact was built wrong
+            throw new IllegalStateException("No se encontró " + DOCUMENT_LOCATION + " en el classpath");
+        }
+        ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        JsonNode document;
+        try (InputStream in = resource.getInputStream()) {
+            document = mapper.readTree(in);
+        }
+        // springdoc anota la URL con la que se generó (localhost en el build) / springdoc records the URL it was generated from (localhost during the build)
+        ((ObjectNode) document).remove("servers");
+        json = mapper.writeValueAsBytes(document);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        }
+        gzipJson = compressed.toByteArray();
+
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json), 0, 16);
+        etag = "\"" + hash + "\"";
+        gzipEtag = "\"" + hash + "-gzip\"";
+    }
+
+    /**
+     * Retorna el documento OpenAPI pregenerado, comprimido si el cliente acepta gzip.
+     * <br>
+     * Returns the pre-generated OpenAPI document, compressed if the client accepts gzip.
+     *
+     * @param webRequest petición (cabeceras condicionales) / request (conditional headers)
+     * @param acceptEncoding cabecera Accept-Encoding / Accept-Encoding header
+     * @return documento OpenAPI / OpenAPI document
+     */
+    @GetMapping(value = "/v3/api-docs", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getApiDocs(WebRequest webRequest,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String currentEtag = gzip ? gzipEtag : etag;
+
+        if (webRequest.checkNotModified(currentEtag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(currentEtag)
+                    .cacheControl(DOCS_CACHE)
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(currentEtag)
+                .cacheControl(DOCS_CACHE)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzipJson);
+        }
+        return response.body(json);
+    }
+
+    /**
+     * Indica si Accept-Encoding admite gzip con q mayor que cero, de forma explícita o mediante
+     * {@code *}. Una entrada explícita prevalece sobre el comodín.
+     * <br>
+     * Tells whether Accept-Encoding allows gzip with a q greater than zero, explicitly or through
+     * {@code *}. An explicit entry takes precedence over the wildcard.
+     *
+     * @param acceptEncoding cabecera Accept-Encoding / Accept-Encoding header
+     * @return true si se puede responder comprimido / true if the response may be compressed
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzipQuality = -1;
+        double wildcardQuality = -1;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzipQuality = Math.max(gzipQuality, quality(parts));
+            } else if (coding.equals("*")) {
+                wildcardQuality = quality(parts);
+            }
+        }
+        return (gzipQuality >= 0 ? gzipQuality : wildcardQuality) > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                    && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -25,6 +25,7 @@ import org.springframework.web.bind.annotation.RestController;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
 import main.dto.UserDTO;
 import main.entity.User;
 import main.security.JwtUtil;
@@ -68,6 +69,7 @@ public class AuthController {
      * Endpoint to authenticate user and generate JWT token.
      *
      * @param userDTO datos de login / login data
+     * @param request petición HTTP (para la IP de auditoría) / HTTP request (for the audit IP)
      * @return ResponseEntity con el token JWT / JWT token
      */
     @Operation(summary = "Autenticar usuario", description = "Recibe credenciales y retorna un token JWT si son válidas.")
@@ -76,9 +78,9 @@ public class AuthController {
             @ApiResponse(responseCode = "401", description = "Credenciales inválidas")
     })
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@RequestBody UserDTO userDTO) {
+    public ResponseEntity<?> loginUser(@RequestBody UserDTO userDTO, HttpServletRequest request) {
         logger.info("Intentando ingresar usuario: " + userDTO.getUserName());
-        User user = userService.login(userDTO.getUserName(), userDTO.getPassword());
+        User user = userService.login(userDTO.getUserName(), userDTO.getPassword(), request.getRemoteAddr());
         String token = jwtUtil.generateToken(user.getUserName());
         return ResponseEntity.ok(Map.of("token", token));
     }
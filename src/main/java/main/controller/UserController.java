@@ -11,24 +11,34 @@
  */
 package main.controller;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import main.dto.LoginAuditDTO;
+import main.dto.UserAuthInfo;
 import main.dto.UserDTO;
+import main.entity.LoginAudit;
 import main.entity.User;
+import main.service.LoginAuditService;
 import main.service.UserService;
 
 @RestController
@@ -38,28 +48,81 @@ public class UserController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private LoginAuditService loginAuditService;
+
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
+    /**
+     * El perfil es privado y debe revalidarse siempre con If-None-Match.
+     * Profile is private and must always be revalidated with If-None-Match.
+     */
+    private static final CacheControl PROFILE_CACHE = CacheControl.noCache().cachePrivate();
+
     /**
      * Retorna el perfil del usuario autenticado usando el JWT.
+     * <p>
+     * El ETag fuerte se deriva del id y la versión del usuario que el filtro JWT ya cargó. Si coincide
+     * con If-None-Match se responde 304 sin más consultas, sin cargar la entidad ni serializar el cuerpo.
      * <br>
-     * Returns the profile of the authenticated user using JWT.
+     * Returns the profile of the authenticated user using JWT. The strong ETag is derived from the
+     * user id and version already loaded by the JWT filter. If it matches If-None-Match, a 304 is
+     * returned with no further queries, without loading the entity or serializing the body.
      *
      * @param authentication contexto de autenticación / authentication context
+     * @param webRequest petición (cabeceras condicionales) / request (conditional headers)
      * @return perfil del usuario / user profile
      */
-    @Operation(summary = "Obtener perfil del usuario autenticado", description = "Devuelve los datos del usuario actualmente autenticado.")
+    @Operation(summary = "Obtener perfil del usuario autenticado", description = "Devuelve los datos del usuario actualmente autenticado. Soporta If-None-Match.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Perfil obtenido correctamente", content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserDTO.class))),
+            @ApiResponse(responseCode = "304", description = "El perfil no ha cambiado"),
             @ApiResponse(responseCode = "401", description = "No autenticado o token inválido")
     })
     @GetMapping("/profile")
-    public ResponseEntity<UserDTO> getProfile(Authentication authentication) {
+    public ResponseEntity<UserDTO> getProfile(Authentication authentication, WebRequest webRequest) {
         logger.info("Intentando obtener perfil: " + authentication.getName());
         String userName = authentication.getName();
+
+        String currentETag = currentProfileETag(authentication);
+        if (currentETag != null && webRequest.checkNotModified(currentETag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(currentETag)
+                    .cacheControl(PROFILE_CACHE)
+                    .varyBy(HttpHeaders.AUTHORIZATION)
+                    .build();
+        }
+
         Optional<User> user = userService.findByUserName(userName);
         UserDTO dto = mapToDTO(user);
-        return ResponseEntity.ok(dto);
+        return ResponseEntity.ok()
+                .eTag(profileETag(user.get().getId(), user.get().getVersion()))
+                .cacheControl(PROFILE_CACHE)
+                .varyBy(HttpHeaders.AUTHORIZATION)
+                .body(dto);
+    }
+
+    /**
+     * Retorna los intentos de login recientes del usuario autenticado.
+     * <br>
+     * Returns the recent login attempts of the authenticated user.
+     *
+     * @param authentication contexto de autenticación / authentication context
+     * @param limit número máximo de eventos / maximum number of events
+     * @return eventos de auditoría / audit events
+     */
+    @Operation(summary = "Auditoría de login del usuario autenticado", description = "Devuelve los intentos de login recientes, del más reciente al más antiguo.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Eventos obtenidos correctamente"),
+            @ApiResponse(responseCode = "401", description = "No autenticado o token inválido")
+    })
+    @GetMapping("/audit")
+    public ResponseEntity<List<LoginAuditDTO>> getLoginAudit(Authentication authentication,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<LoginAuditDTO> events = loginAuditService.findRecent(authentication.getName(), limit).stream()
+                .map(this::mapToDTO)
+                .toList();
+        return ResponseEntity.ok(events);
     }
 
     /**
@@ -80,4 +143,41 @@ public class UserController {
         return dto;
     }
 
+    /**
+     * Convierte un registro de auditoría de login en un LoginAuditDTO.
+     * <br>
+     * Converts a login audit record to a LoginAuditDTO.
+     *
+     * @param audit registro a convertir / record to convert
+     * @return DTO del intento / attempt DTO
+     */
+    public LoginAuditDTO mapToDTO(LoginAudit audit) {
+        LoginAuditDTO dto = new LoginAuditDTO();
+        dto.setUserName(audit.getUserName());
+        dto.setOccurredAt(audit.getOccurredAt());
+        dto.setIp(audit.getIp());
+        dto.setSuccess(audit.isSuccess());
+        return dto;
+    }
+
+    /**
+     * ETag actual del perfil. Usa el id y la versión que el filtro JWT ya cargó; solo consulta la
+     * versión si la autenticación no los trae.
+     * <br>
+     * Current profile ETag. Uses the id and version already loaded by the JWT filter; only queries the
+     * version when the authentication does not carry them.
+     */
+    private String currentProfileETag(Authentication authentication) {
+        if (authentication.getDetails() instanceof UserAuthInfo info) {
+            return profileETag(info.getId(), info.getVersion());
+        }
+        return userService.findVersionByUserName(authentication.getName())
+                .map(version -> profileETag(version.getId(), version.getVersion()))
+                .orElse(null);
+    }
+
+    private static String profileETag(Long id, Long version) {
+        return "\"" + id + "-" + (version != null ? version : 0) + "\"";
+    }
+
 }
@@ -0,0 +1,48 @@
+/**
+ * Data Transfer Object (DTO) para exponer intentos de login.
+ * <p>
+ * Expone el resultado de cada intento sin el identificador interno del registro de auditoría.
+ * <br>
+ * Data Transfer Object (DTO) to expose login attempts. Exposes each attempt's outcome without the
+ * audit record's internal identifier.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.dto;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class LoginAuditDTO {
+
+    /**
+     * Nombre de usuario del intento / Username of the attempt
+     */
+    private String userName;
+
+    /**
+     * Instante del intento / Instant of the attempt
+     */
+    private Instant occurredAt;
+
+    /**
+     * IP de origen / Source IP
+     */
+    private String ip;
+
+    /**
+     * Resultado del intento / Outcome of the attempt
+     */
+    private boolean success;
+}
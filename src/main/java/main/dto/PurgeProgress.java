@@ -0,0 +1,68 @@
+/**
+ * Data Transfer Object (DTO) con el progreso de una purga masiva de usuarios.
+ * <p>
+ * Cada instancia es una instantánea inmutable; el servicio publica una nueva tras cada lote.
+ * <br>
+ * Data Transfer Object (DTO) with the progress of a bulk user purge. Each instance is an immutable
+ * snapshot; the service publishes a new one after every batch.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.dto;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class PurgeProgress {
+
+    /**
+     * Estado de la purga / Purge status
+     */
+    public enum Status { IDLE, RUNNING, COMPLETED, FAILED }
+
+    /**
+     * Estado actual / Current status
+     */
+    private final Status status;
+
+    /**
+     * Usuarios a purgar estimados al inicio / Users to purge, estimated at start
+     */
+    private final long total;
+
+    /**
+     * Usuarios purgados hasta ahora / Users purged so far
+     */
+    private final long purged;
+
+    /**
+     * Lotes ejecutados / Executed batches
+     */
+    private final int batches;
+
+    /**
+     * Inicio de la purga / Purge start
+     */
+    private final Instant startedAt;
+
+    /**
+     * Fin de la purga (nulo si sigue en curso) / Purge end (null while running)
+     */
+    private final Instant finishedAt;
+
+    /**
+     * Mensaje de error si falló / Error message if it failed
+     */
+    private final String error;
+
+    public static PurgeProgress idle() {
+        return new PurgeProgress(Status.IDLE, 0, 0, 0, null, null, null);
+    }
+}
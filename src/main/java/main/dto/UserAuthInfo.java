@@ -0,0 +1,41 @@
+/**
+ * Data Transfer Object (DTO) con los datos mínimos para autenticar una petición.
+ * <p>
+ * El filtro JWT lo carga en lugar de la entidad completa y lo adjunta como detalle de la
+ * autenticación, de modo que los controladores pueden usar el id y la versión sin otra consulta.
+ * <br>
+ * Data Transfer Object (DTO) with the minimum data needed to authenticate a request. The JWT filter
+ * loads it instead of the full entity and attaches it as the authentication details, so controllers
+ * can use the id and version without another query.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@AllArgsConstructor
+@ToString
+public class UserAuthInfo {
+
+    /**
+     * Identificador del usuario / User identifier
+     */
+    private final long id;
+
+    /**
+     * Versión del usuario (bloqueo optimista) / User version (optimistic locking)
+     */
+    private final Long version;
+
+    /**
+     * Roles del usuario / User roles
+     */
+    private final List<String> roles;
+}
@@ -0,0 +1,60 @@
+/**
+ * Entidad JPA para el registro de auditoría de login.
+ * <p>
+ * Las filas se insertan en lote por {@link main.audit.LoginAuditWriter} vía JDBC; JPA solo se usa
+ * para definir la tabla y consultarla.
+ * <br>
+ * JPA entity for the login audit trail. Rows are batch-inserted by {@link main.audit.LoginAuditWriter}
+ * through JDBC; JPA is only used to define the table and query it.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.entity;
+
+import java.time.Instant;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "login_audit", indexes = @Index(name = "idx_login_audit_user_time", columnList = "user_name, occurred_at"))
+public class LoginAudit {
+
+    /**
+     * Identificador del registro / Record identifier
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    /**
+     * Nombre de usuario del intento / Username of the attempt
+     */
+    private String userName;
+
+    /**
+     * Instante del intento / Instant of the attempt
+     */
+    private Instant occurredAt;
+
+    /**
+     * IP de origen / Source IP
+     */
+    private String ip;
+
+    /**
+     * Resultado del intento / Outcome of the attempt
+     */
+    private boolean success;
+}
@@ -10,12 +10,19 @@
  */
 package main.entity;
 
+import java.time.Instant;
+
+import org.hibernate.annotations.SQLRestriction;
+
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -26,6 +33,7 @@ import lombok.Setter;;
 @Setter
 @NoArgsConstructor
 @Table(name = "\"users\"")
+@SQLRestriction("deleted_at is null")
 public class User {
 
     /**
@@ -58,5 +66,27 @@ public class User {
      * Roles asignados al usuario / User roles
      */
     @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "user_role", joinColumns = @JoinColumn(name = "user_id"))
     private java.util.List<String> role;
+
+    /**
+     * Versión del perfil, incrementada en cada cambio (base del ETag) / Profile version, bumped on every change (ETag source)
+     */
+    @Version
+    private Long version;
+
+    /**
+     * Último login exitoso (actualizado en lote) / Last successful login (batch-updated)
+     */
+    private Instant lastLogin;
+
+    /**
+     * Última petición autenticada (actualizado en lote) / Last authenticated request (batch-updated)
+     */
+    private Instant lastSeen;
+
+    /**
+     * Fecha de baja lógica; las consultas JPA ignoran usuarios con valor / Soft-delete timestamp; JPA queries skip users that have it
+     */
+    private Instant deletedAt;
 }
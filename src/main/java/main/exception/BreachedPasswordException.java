@@ -0,0 +1,20 @@
+/**
+ * Excepción para contraseñas que aparecen en listas de contraseñas filtradas.
+ * <p>
+ * Se lanza al registrar un usuario con una contraseña comprometida.
+ * <br>
+ * Exception for passwords that appear in breached-password lists. Thrown when registering a user
+ * with a compromised password.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.exception;
+
+public class BreachedPasswordException extends RuntimeException {
+
+    public BreachedPasswordException(String message) {
+        super(message);
+    }
+
+}
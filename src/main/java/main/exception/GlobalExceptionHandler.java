@@ -22,4 +22,9 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleUserAlreadyExists(UserAlreadyExistsException ex) {
         return ResponseEntity.status(409).body(ex.getMessage());
     }
+
+    @ExceptionHandler(BreachedPasswordException.class)
+    public ResponseEntity<String> handleBreachedPassword(BreachedPasswordException ex) {
+        return ResponseEntity.status(400).body(ex.getMessage());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,51 @@
+/**
+ * Contexto de hilo con el usuario al que afecta una lectura.
+ * <p>
+ * Permite a {@link ReplicaRoutingDataSource} aplicar la ventana de read-your-writes incluso antes de
+ * que exista autenticación (por ejemplo, en la búsqueda del filtro JWT).
+ * <br>
+ * Thread context holding the user a read is about. Lets {@link ReplicaRoutingDataSource} apply the
+ * read-your-writes window even before authentication exists (e.g. in the JWT filter lookup).
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.replica;
+
+import java.util.function.Supplier;
+
+public final class ReadRoutingContext {
+
+    private static final ThreadLocal<String> CURRENT_USER = new ThreadLocal<>();
+
+    private ReadRoutingContext() {
+    }
+
+    /**
+     * Ejecuta la lectura indicando el usuario al que afecta.
+     * <br>
+     * Runs the read stating the user it is about.
+     *
+     * @param userName nombre de usuario / username
+     * @param read lectura / read
+     * @param <T> tipo del resultado / result type
+     * @return resultado / result
+     */
+    public static <T> T forUser(String userName, Supplier<T> read) {
+        String previous = CURRENT_USER.get();
+        CURRENT_USER.set(userName);
+        try {
+            return read.get();
+        } finally {
+            if (previous != null) {
+                CURRENT_USER.set(previous);
+            } else {
+                CURRENT_USER.remove();
+            }
+        }
+    }
+
+    static String currentUser() {
+        return CURRENT_USER.get();
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Ventana de "leer lo propio escrito" por usuario.
+ * <p>
+ * Tras una escritura que afecta a un usuario (registro, cambio de roles), sus lecturas se envían al
+ * primario durante {@code windowMillis}, hasta que las réplicas se hayan puesto al día.
+ * <br>
+ * Per-user read-your-writes window. After a write affecting a user (registration, role change), their
+ * reads go to the primary for {@code windowMillis}, until replicas have caught up.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.replica;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ReadYourWritesTracker {
+
+    private final long windowMillis;
+    private final ConcurrentHashMap<String, Long> primaryUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Registra una escritura sobre el usuario.
+     * <br>
+     * Records a write on the user.
+     *
+     * @param userName nombre de usuario / username
+     */
+    public void recordWrite(String userName) {
+        if (userName != null) {
+            primaryUntil.put(userName, System.currentTimeMillis() + windowMillis);
+        }
+    }
+
+    /**
+     * Indica si las lecturas del usuario deben ir al primario.
+     * <br>
+     * Tells whether the user's reads must go to the primary.
+     *
+     * @param userName nombre de usuario (puede ser nulo) / username (may be null)
+     * @return true si está dentro de la ventana / true if within the window
+     */
+    public boolean mustReadPrimary(String userName) {
+        if (userName == null) {
+            return false;
+        }
+        Long until = primaryUntil.get(userName);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    /**
+     * Elimina las ventanas vencidas para acotar la memoria.
+     * <br>
+     * Removes expired windows to bound memory.
+     */
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        primaryUntil.values().removeIf(until -> until <= now);
+    }
+}
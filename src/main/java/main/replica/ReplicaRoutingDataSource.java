@@ -0,0 +1,231 @@
+/**
+ * Datasource que enruta las transacciones de solo lectura a réplicas.
+ * <p>
+ * Las transacciones {@code @Transactional(readOnly = true)} se reparten en round-robin entre las
+ * réplicas sanas; todo lo demás va al primario. Las lecturas de un usuario dentro de su ventana de
+ * read-your-writes también van al primario. {@link #checkReplicas()} ejecuta una consulta de prueba
+ * contra cada réplica (y mide su retraso, si hay consulta de lag configurada) y expulsa las que fallan
+ * o van demasiado atrasadas; una réplica accesible pero sin el esquema también se expulsa. Las réplicas
+ * empiezan fuera de servicio y solo reciben lecturas tras superar su primera prueba. Debe usarse
+ * detrás de un {@code LazyConnectionDataSourceProxy} para que la conexión se obtenga cuando la
+ * transacción ya está marcada como de solo lectura.
+ * <br>
+ * Datasource routing read-only transactions to replicas. {@code @Transactional(readOnly = true)}
+ * transactions are spread round-robin over healthy replicas; everything else goes to the primary. A
+ * user's reads within their read-your-writes window also go to the primary. {@link #checkReplicas()}
+ * runs a probe query against each replica (and measures its lag, when a lag query is configured) and
+ * ejects those failing or lagging too far behind; a reachable replica missing the schema is ejected too.
+ * Replicas start out of rotation and only receive reads after passing their first probe. Must be used behind a {@code LazyConnectionDataSourceProxy} so the connection
+ * is obtained once the transaction is already marked read-only.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.replica;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    /** Consulta de prueba por defecto / Default probe query. */
+    public static final String DEFAULT_PROBE_QUERY = "SELECT 1 FROM \"users\" WHERE 1 = 0";
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    private final Counter writeRoutes;
+    private final Counter readYourWritesRoutes;
+    private final Counter fallbackRoutes;
+    private final Counter replicaRoutes;
+
+    private String probeQuery = DEFAULT_PROBE_QUERY;
+    private String lagQuery;
+    private long maxLagMillis = 2000;
+    private int failureThreshold = 3;
+
+    /**
+     * Crea el datasource con el primario y sus réplicas.
+     * <br>
+     * Creates the datasource with the primary and its replicas.
+     *
+     * @param primary datasource primario / primary datasource
+     * @param replicaDataSources réplicas / replicas
+     * @param readYourWritesTracker ventana de read-your-writes / read-your-writes window
+     * @param meterRegistry registro de métricas / meter registry
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources,
+            ReadYourWritesTracker readYourWritesTracker, MeterRegistry meterRegistry) {
+        this.readYourWritesTracker = readYourWritesTracker;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicaDataSources.size(); i++) {
+            Replica replica = new Replica("replica-" + i, replicaDataSources.get(i));
+            replicas.add(replica);
+            targets.put(replica.key, replica.dataSource);
+            Gauge.builder("datasource.replica.lag", replica, r -> r.lagMillis)
+                    .tag("replica", replica.key)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .tag("replica", replica.key)
+                    .register(meterRegistry);
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+
+        writeRoutes = meterRegistry.counter("datasource.routing", "target", "primary", "reason", "write");
+        readYourWritesRoutes = meterRegistry.counter("datasource.routing", "target", "primary", "reason", "read-your-writes");
+        fallbackRoutes = meterRegistry.counter("datasource.routing", "target", "primary", "reason", "no-healthy-replica");
+        replicaRoutes = meterRegistry.counter("datasource.routing", "target", "replica", "reason", "read-only");
+    }
+
+    public void setProbeQuery(String probeQuery) {
+        this.probeQuery = probeQuery == null || probeQuery.isBlank() ? DEFAULT_PROBE_QUERY : probeQuery;
+    }
+
+    public void setLagQuery(String lagQuery) {
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+    }
+
+    public void setMaxLagMillis(long maxLagMillis) {
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    /**
+     * Prueba las réplicas antes de enrutarles lecturas.
+     * <br>
+     * Probes the replicas before routing reads to them.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        checkReplicas();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writeRoutes.increment();
+            return PRIMARY;
+        }
+        if (readYourWritesTracker.mustReadPrimary(currentUser())) {
+            readYourWritesRoutes.increment();
+            return PRIMARY;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                replicaRoutes.increment();
+                return replica.key;
+            }
+        }
+        fallbackRoutes.increment();
+        return PRIMARY;
+    }
+
+    /**
+     * Ejecuta la consulta de prueba en cada réplica y actualiza su retraso; expulsa las que fallan
+     * {@code failureThreshold} veces seguidas o superan el retraso máximo, y readmite las que se
+     * recuperan. La consulta toca la tabla de usuarios, así que una réplica vacía o sin migrar cuenta
+     * como fallida aunque acepte conexiones.
+     * <br>
+     * Runs the probe query on every replica and refreshes its lag; ejects those failing
+     * {@code failureThreshold} times in a row or exceeding the maximum lag, and readmits those that
+     * recover. The probe touches the users table, so an empty or unmigrated replica counts as failing
+     * even though it accepts connections.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                probe(connection);
+                replica.lagMillis = lagQuery != null ? queryLag(connection) : 0;
+                replica.consecutiveFailures = 0;
+                setHealthy(replica, replica.lagMillis <= maxLagMillis);
+            } catch (SQLException | RuntimeException e) {
+                replica.consecutiveFailures++;
+                if (replica.consecutiveFailures >= failureThreshold) {
+                    setHealthy(replica, false);
+                }
+                logger.debug("Chequeo fallido de " + replica.key + ": " + e.getMessage());
+            }
+        }
+        readYourWritesTracker.evictExpired();
+    }
+
+    private void probe(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(2);
+            statement.executeQuery(probeQuery).close();
+        }
+    }
+
+    private long queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(lagQuery)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private void setHealthy(Replica replica, boolean healthy) {
+        if (replica.healthy != healthy) {
+            logger.warn("Réplica " + replica.key + (healthy ? " readmitida" : " expulsada")
+                    + " (lag " + replica.lagMillis + " ms)");
+            replica.healthy = healthy;
+        }
+    }
+
+    private static String currentUser() {
+        String hinted = ReadRoutingContext.currentUser();
+        if (hinted != null) {
+            return hinted;
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    private static final class Replica {
+        private final String key;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile long lagMillis;
+        private int consecutiveFailures;
+
+        private Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
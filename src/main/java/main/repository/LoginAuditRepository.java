@@ -0,0 +1,32 @@
+/**
+ * Repositorio JPA para la entidad LoginAudit.
+ * <p>
+ * Proporciona consultas de lectura sobre el registro de auditoría de login.
+ * <br>
+ * JPA repository for the LoginAudit entity. Provides read queries over the login audit trail.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import main.entity.LoginAudit;
+
+public interface LoginAuditRepository extends JpaRepository<LoginAudit, Long> {
+
+    /**
+     * Busca los eventos más recientes de un usuario.
+     * <br>
+     * Finds the most recent events of a user.
+     *
+     * @param userName nombre de usuario / username
+     * @param pageable límite de resultados / result limit
+     * @return eventos ordenados del más reciente al más antiguo / events from newest to oldest
+     */
+    List<LoginAudit> findByUserNameOrderByOccurredAtDesc(String userName, Pageable pageable);
+}
@@ -10,8 +10,14 @@
  */
 package main.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import main.entity.User;
 
 public interface UserRepository extends JpaRepository<User, Long>{
@@ -65,4 +71,64 @@ public interface UserRepository extends JpaRepository<User, Long>{
      * @return lista de usuarios / list of users
      */
     java.util.List<User> findByRole(String role);
+
+    /**
+     * Obtiene solo el id y la versión del usuario, sin cargar la entidad ni sus roles.
+     * <br>
+     * Gets only the user id and version, without loading the entity or its roles.
+     *
+     * @param userName nombre de usuario / username
+     * @return id y versión (opcional) / id and version (optional)
+     */
+    @Query("select u.id as id, u.version as version from User u where u.userName = :userName")
+    Optional<UserVersion> findVersionByUserName(@Param("userName") String userName);
+
+    /**
+     * Obtiene id, versión y roles del usuario (una fila por rol) sin cargar la entidad completa.
+     * <br>
+     * Gets the user id, version and roles (one row per role) without loading the full entity.
+     *
+     * @param userName nombre de usuario / username
+     * @return filas id/versión/rol, vacía si no existe / id/version/role rows, empty if absent
+     */
+    @Query("select u.id as id, u.version as version, r as role from User u left join u.role r where u.userName = :userName")
+    java.util.List<UserAuthRow> findAuthRowsByUserName(@Param("userName") String userName);
+
+    /**
+     * Marca como eliminados (baja lógica) los usuarios indicados con una sola sentencia UPDATE.
+     * <br>
+     * Soft-deletes the given users with a single UPDATE statement.
+     *
+     * @param ids ids de usuario / user ids
+     * @param deletedAt instante de baja / deletion instant
+     * @return usuarios marcados / users marked
+     */
+    @Modifying
+    @Transactional
+    @Query("update User u set u.deletedAt = :deletedAt where u.id in :ids and u.deletedAt is null")
+    int softDeleteByIds(@Param("ids") Collection<Long> ids, @Param("deletedAt") Instant deletedAt);
+
+    /**
+     * Proyección con el id y la versión de un usuario.
+     * <br>
+     * Projection with a user's id and version.
+     */
+    interface UserVersion {
+        Long getId();
+
+        Long getVersion();
+    }
+
+    /**
+     * Proyección con el id, la versión y un rol de un usuario.
+     * <br>
+     * Projection with a user's id, version and one role.
+     */
+    interface UserAuthRow {
+        Long getId();
+
+        Long getVersion();
+
+        String getRole();
+    }
 }
@@ -0,0 +1,124 @@
+/**
+ * Verificación de contraseñas filtradas contra un filtro de Bloom mapeado en memoria.
+ * <p>
+ * Carga el archivo de {@code breach-filter.path} (generado con {@link BreachedPasswordFilterCompiler}) y
+ * responde consultas de pertenencia fuera del heap, sin llamadas de red. Revisa periódicamente el archivo
+ * y, si cambió, mapea el nuevo y lo publica de forma atómica (hot swap). Si no hay archivo configurado,
+ * ninguna contraseña se considera filtrada. Expone la tasa de falsos positivos esperada y la latencia de
+ * las verificaciones como métricas.
+ * <br>
+ * Breached-password check against a memory-mapped Bloom filter. Loads the file at
+ * {@code breach-filter.path} (built with {@link BreachedPasswordFilterCompiler}) and answers membership
+ * queries off-heap, without network calls. Periodically checks the file and, if it changed, maps the new
+ * one and publishes it atomically (hot swap). With no file configured, no password is considered
+ * breached. Exposes the expected false-positive rate and check latency as metrics.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.security;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+@Component
+public class BreachedPasswordFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BreachedPasswordFilter.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${breach-filter.path:}")
+    private String path;
+
+    private volatile MappedBloomFilter filter;
+    private FileTime loadedModifiedTime;
+    private long loadedSize = -1;
+    private Timer checkTimer;
+
+    @PostConstruct
+    public void init() {
+        checkTimer = meterRegistry.timer("password.breach.filter.check");
+        Gauge.builder("password.breach.filter.fpp", this,
+                        f -> f.filter != null ? f.filter.expectedFalsePositiveRate() : 0)
+                .description("Tasa esperada de falsos positivos / Expected false-positive rate")
+                .register(meterRegistry);
+        Gauge.builder("password.breach.filter.entries", this,
+                        f -> f.filter != null ? f.filter.getNumEntries() : 0)
+                .description("Hashes en el filtro / Hashes in the filter")
+                .register(meterRegistry);
+        reloadIfChanged();
+    }
+
+    /**
+     * Indica si la contraseña aparece (probablemente) en listas de contraseñas filtradas.
+     * <br>
+     * Tells whether the password (probably) appears in breached-password lists.
+     *
+     * @param password contraseña en claro / plain-text password
+     * @return true si está en el filtro / true if it is in the filter
+     */
+    public boolean isBreached(String password) {
+        MappedBloomFilter current = filter;
+        if (current == null || password == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        boolean breached = current.mightContainPassword(password);
+        checkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return breached;
+    }
+
+    /**
+     * Vuelve a mapear el archivo si cambió su fecha o tamaño. El archivo nuevo debe llegar por
+     * renombrado atómico, como hace {@link BreachedPasswordFilterCompiler}.
+     * <br>
+     * Remaps the file if its modification time or size changed. The new file must arrive by atomic
+     * rename, as {@link BreachedPasswordFilterCompiler} does.
+     */
+    @Scheduled(fixedDelayString = "${breach-filter.reload-interval-ms:60000}")
+    public synchronized void reloadIfChanged() {
+        if (path == null || path.isBlank()) {
+            return;
+        }
+        Path file = Path.of(path);
+        try {
+            if (!Files.exists(file)) {
+                if (filter == null) {
+                    logger.warn("Filtro de contraseñas filtradas no encontrado: " + file);
+                }
+                return;
+            }
+            FileTime modified = Files.getLastModifiedTime(file);
+            long size = Files.size(file);
+            if (modified.equals(loadedModifiedTime) && size == loadedSize) {
+                return;
+            }
+            MappedBloomFilter loaded = MappedBloomFilter.open(file);
+            filter = loaded;
+            loadedModifiedTime = modified;
+            loadedSize = size;
+            logger.info("Filtro de contraseñas filtradas cargado: " + loaded.getNumEntries() + " entradas, "
+                    + "falsos positivos esperados " + loaded.expectedFalsePositiveRate());
+        } catch (IOException e) {
+            // Se mantiene el filtro anterior / The previous filter is kept
+            logger.error("No se pudo cargar el filtro de contraseñas filtradas " + file, e);
+        }
+    }
+}
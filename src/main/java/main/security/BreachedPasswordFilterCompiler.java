@@ -0,0 +1,100 @@
+/**
+ * Herramienta fuera de línea que compila una lista de hashes SHA-1 en un {@link MappedBloomFilter}.
+ * <p>
+ * Acepta el formato de las listas públicas de contraseñas filtradas: una línea por hash en hexadecimal,
+ * opcionalmente seguida de {@code :conteo}. Hace dos pasadas sobre el archivo (contar y cargar) y escribe
+ * el filtro directamente en memoria mapeada, por lo que no necesita un heap proporcional a la lista.
+ * <br>
+ * Offline tool compiling a list of SHA-1 hashes into a {@link MappedBloomFilter}. Accepts the format of
+ * public breached-password lists: one hex hash per line, optionally followed by {@code :count}. Makes
+ * two passes over the file (count and load) and writes the filter directly to mapped memory, so it does
+ * not need a heap proportional to the list.
+ * <p>
+ * Uso / Usage:
+ * {@code java -cp app.jar main.security.BreachedPasswordFilterCompiler hashes.txt breached.bloom [0.001]}
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.security;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+public final class BreachedPasswordFilterCompiler {
+
+    private BreachedPasswordFilterCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: BreachedPasswordFilterCompiler <hashes.txt> <salida.bloom> [tasa-falsos-positivos]");
+            System.exit(2);
+        }
+        double falsePositiveRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.001;
+        long start = System.nanoTime();
+        MappedBloomFilter filter = compile(Path.of(args[0]), Path.of(args[1]), falsePositiveRate);
+        System.out.printf("Entradas: %d, bits: %d, hashes: %d, falsos positivos esperados: %.6f, tiempo: %d s%n",
+                filter.getNumEntries(), filter.getNumBits(), filter.getNumHashes(),
+                filter.expectedFalsePositiveRate(), (System.nanoTime() - start) / 1_000_000_000L);
+    }
+
+    /**
+     * Compila la lista de hashes en el archivo de salida. Escribe primero a un archivo temporal y lo
+     * mueve de forma atómica, para que un proceso que observe la salida nunca vea un filtro a medias.
+     * <br>
+     * Compiles the hash list into the output file. Writes to a temporary file first and moves it
+     * atomically, so a process watching the output never sees a half-written filter.
+     *
+     * @param input lista de hashes SHA-1 / SHA-1 hash list
+     * @param output archivo del filtro / filter file
+     * @param falsePositiveRate tasa de falsos positivos objetivo / target false-positive rate
+     * @return filtro compilado / compiled filter
+     * @throws IOException si falla la lectura o escritura / if reading or writing fails
+     */
+    public static MappedBloomFilter compile(Path input, Path output, double falsePositiveRate) throws IOException {
+        byte[] digest = new byte[MappedBloomFilter.DIGEST_BYTES];
+        long entries = 0;
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.US_ASCII)) {
+            for (String line; (line = reader.readLine()) != null;) {
+                if (parseDigest(line, digest)) {
+                    entries++;
+                }
+            }
+        }
+
+        Path absoluteOutput = output.toAbsolutePath();
+        Path temp = absoluteOutput.resolveSibling(absoluteOutput.getFileName() + ".tmp");
+        MappedBloomFilter filter = MappedBloomFilter.create(temp, entries, falsePositiveRate);
+        try (BufferedReader reader = Files.newBufferedReader(input, StandardCharsets.US_ASCII)) {
+            for (String line; (line = reader.readLine()) != null;) {
+                if (parseDigest(line, digest)) {
+                    filter.put(digest);
+                }
+            }
+        }
+        filter.flush();
+        Files.move(temp, absoluteOutput, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return MappedBloomFilter.open(absoluteOutput);
+    }
+
+    private static boolean parseDigest(String line, byte[] digest) {
+        int hexLength = MappedBloomFilter.DIGEST_BYTES * 2;
+        if (line.length() < hexLength) {
+            return false;
+        }
+        for (int i = 0; i < MappedBloomFilter.DIGEST_BYTES; i++) {
+            int high = Character.digit(line.charAt(2 * i), 16);
+            int low = Character.digit(line.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                return false;
+            }
+            digest[i] = (byte) ((high << 4) | low);
+        }
+        return line.length() == hexLength || line.charAt(hexLength) == ':';
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Filtro de limitación adaptativa de concurrencia y descarte de carga.
+ * <p>
+ * Admite una petición solo si las peticiones en curso están por debajo del límite calculado por
+ * {@link GradientConcurrencyLimit}. Las rutas costosas (por defecto login y registro, que ejecutan
+ * BCrypt) solo pueden ocupar una fracción del límite, de modo que cuando falta capacidad las lecturas
+ * autenticadas baratas tienen prioridad. Las peticiones excedentes se rechazan de inmediato con 503 y
+ * Retry-After en lugar de encolarse en Tomcat. Los endpoints de actuator no se limitan.
+ * <br>
+ * Adaptive concurrency limiting and load shedding filter. Admits a request only if in-flight requests
+ * are below the limit computed by {@link GradientConcurrencyLimit}. Expensive paths (by default login
+ * and register, which run BCrypt) may only use a fraction of the limit, so cheap authenticated reads
+ * win when capacity is short. Excess requests are rejected immediately with 503 and Retry-After instead
+ * of queueing in Tomcat. Actuator endpoints are not limited.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.security;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Clases de prioridad de las peticiones / Request priority classes
+     */
+    enum Priority { CRITICAL, EXPENSIVE }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${concurrency.limit.initial:50}")
+    private int initialLimit;
+
+    @Value("${concurrency.limit.min:10}")
+    private int minLimit;
+
+    @Value("${concurrency.limit.max:500}")
+    private int maxLimit;
+
+    @Value("${concurrency.expensive-share:0.7}")
+    private double expensiveShare;
+
+    @Value("${concurrency.expensive-paths:/api/auth/login,/api/auth/register}")
+    private String[] expensivePaths;
+
+    @Value("${concurrency.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+    private GradientConcurrencyLimit limit;
+    private Counter rejectedCritical;
+    private Counter rejectedExpensive;
+
+    @PostConstruct
+    public void init() {
+        limit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        Gauge.builder("http.concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                .description("Límite adaptativo de peticiones concurrentes / Adaptive concurrent request limit")
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.inflight", inflight, AtomicInteger::get)
+                .description("Peticiones en curso / In-flight requests")
+                .register(meterRegistry);
+        rejectedCritical = meterRegistry.counter("http.concurrency.rejected", "priority", "critical");
+        rejectedExpensive = meterRegistry.counter("http.concurrency.rejected", "priority", "expensive");
+    }
+
+    /**
+     * Admite o rechaza la petición según el límite actual y su prioridad, y registra su latencia.
+     * <br>
+     * Admits or rejects the request according to the current limit and its priority, and records its latency.
+     *
+     * @param request  petición HTTP / HTTP request
+     * @param response respuesta HTTP / HTTP response
+     * @param filterChain cadena de filtros / filter chain
+     * @throws ServletException si ocurre un error en el filtro / if a filter error occurs
+     * @throws IOException si ocurre un error de IO / if an IO error occurs
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Priority priority = classify(request.getRequestURI());
+        int currentLimit = limit.getLimit();
+        int allowed = priority == Priority.EXPENSIVE
+                ? Math.max(1, (int) (currentLimit * expensiveShare))
+                : currentLimit;
+
+        if (!tryAcquire(allowed)) {
+            (priority == Priority.EXPENSIVE ? rejectedExpensive : rejectedCritical).increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int inflightAtCompletion = inflight.getAndDecrement();
+            limit.onSample(System.nanoTime() - start, inflightAtCompletion);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/actuator");
+    }
+
+    private boolean tryAcquire(int allowed) {
+        for (;;) {
+            int current = inflight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private Priority classify(String path) {
+        for (String expensivePath : expensivePaths) {
+            if (path.startsWith(expensivePath)) {
+                return Priority.EXPENSIVE;
+            }
+        }
+        return Priority.CRITICAL;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Límite de concurrencia adaptativo basado en el gradiente de latencia.
+ * <p>
+ * Mantiene dos medias exponenciales del tiempo de respuesta: una de corto plazo (estado actual) y otra
+ * de largo plazo (línea base). Mientras la latencia actual se mantenga dentro de la tolerancia sobre la
+ * línea base, el límite crece en ~√límite; cuando la latencia sube, el gradiente (base / actual) cae
+ * por debajo de 1 y el límite se reduce proporcionalmente, como en Gradient2 de Netflix. Si hay otra
+ * actualización en curso, la muestra se descarta en lugar de esperar el bloqueo.
+ * <br>
+ * Adaptive concurrency limit driven by the latency gradient. Keeps two exponential averages of the
+ * response time: a short-term one (current state) and a long-term one (baseline). While the current
+ * latency stays within the tolerance over the baseline, the limit grows by ~√limit; when latency rises
+ * the gradient (baseline / current) drops below 1 and the limit shrinks proportionally, as in Netflix's
+ * Gradient2. If another update is in progress, the sample is dropped instead of waiting on the lock.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.security;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+public class GradientConcurrencyLimit {
+
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_ALPHA = 2.0 / (600 + 1);
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    /**
+     * Crea el límite con sus cotas.
+     * <br>
+     * Creates the limit with its bounds.
+     *
+     * @param initialLimit límite inicial / initial limit
+     * @param minLimit límite mínimo / minimum limit
+     * @param maxLimit límite máximo / maximum limit
+     */
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Cotas de concurrencia inválidas: " + minLimit + ".." + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Registra la latencia de una petición completada y recalcula el límite.
+     * <br>
+     * Records the latency of a completed request and recomputes the limit.
+     *
+     * @param rttNanos latencia en nanosegundos / latency in nanoseconds
+     * @param inflight peticiones en curso al iniciar esta muestra / in-flight requests when the sample completed
+     */
+    public void onSample(long rttNanos, int inflight) {
+        if (rttNanos <= 0 || !lock.tryLock()) {
+            return;
+        }
+        try {
+            shortRtt = shortRtt == 0 ? rttNanos : shortRtt + (rttNanos - shortRtt) * SHORT_ALPHA;
+            longRtt = longRtt == 0 ? rttNanos : longRtt + (rttNanos - longRtt) * LONG_ALPHA;
+
+            // Si la línea base quedó muy por encima (tras un pico largo), se recupera más rápido
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+
+            double limit = estimatedLimit;
+            // Con poca carga la latencia no dice nada sobre la capacidad: no crecer
+            if (inflight < limit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+            double target = limit * gradient + Math.sqrt(limit);
+            double smoothed = limit * (1 - SMOOTHING) + target * SMOOTHING;
+            estimatedLimit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retorna el límite actual.
+     * <br>
+     * Returns the current limit.
+     *
+     * @return límite de peticiones concurrentes / concurrent request limit
+     */
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+}
@@ -28,11 +28,12 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import main.entity.User;
+import main.dto.UserAuthInfo;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import main.service.UserActivityTracker;
 import main.service.UserService;
 
 @Component
@@ -44,6 +45,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserActivityTracker userActivityTracker;
+
         /**
          * Intercepta cada petición HTTP y valida el token JWT presente en el header Authorization.
          * Si el token es válido, establece la autenticación en el contexto de seguridad.
@@ -70,9 +74,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         if (username != null && jwtUtil.validateToken(token, username)) {
-            Optional<User> userOpt = userService.findByUserName(username);
+            // Solo id, versión y roles: la entidad completa no hace falta para autenticar
+            Optional<UserAuthInfo> userOpt = userService.findAuthInfo(username);
             if (userOpt.isPresent()) {
-                List<String> roles = userOpt.get().getRole();
+                List<String> roles = userOpt.get().getRoles();
                 List<GrantedAuthority> authorities = roles.stream()
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList());
@@ -80,8 +85,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(username,
                         null,
                         authorities);
+                authentication.setDetails(userOpt.get());
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                userActivityTracker.recordSeen(userOpt.get().getId());
             }
         }
         filterChain.doFilter(request, response);
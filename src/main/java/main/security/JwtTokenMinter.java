@@ -0,0 +1,243 @@
+/**
+ * Generador de tokens JWT HS256 optimizado para el conjunto fijo de claims de la aplicación.
+ * <p>
+ * Produce exactamente los mismos bytes que {@code Jwts.builder().setSubject().setIssuedAt()
+ * .setExpiration().signWith(key, HS256).compact()} de jjwt, pero sin mapas de claims, objetos
+ * {@code Date}, serialización JSON genérica ni búsquedas de {@code Mac} por firma: la cabecera está
+ * precodificada, el payload se escribe byte a byte y cada hilo reutiliza su {@code Mac} y sus buffers.
+ * La única asignación por token es el {@code String} resultante.
+ * <br>
+ * HS256 JWT minter specialized for the application's fixed claim set. Produces exactly the same bytes
+ * as jjwt's {@code Jwts.builder().setSubject().setIssuedAt().setExpiration().signWith(key, HS256)
+ * .compact()}, but without claims maps, {@code Date} objects, generic JSON serialization or a
+ * {@code Mac} lookup per signature: the header is pre-encoded, the payload is written byte by byte and
+ * each thread reuses its own {@code Mac} and buffers. The only allocation per token is the resulting
+ * {@code String}.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+public class JwtTokenMinter {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_LENGTH = 32;
+
+    private static final byte[] BASE64URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] HEADER_SEGMENT = encodeStatic("{\"alg\":\"HS256\"}");
+    private static final byte[] SUB_OPEN = ascii("{\"sub\":\"");
+    private static final byte[] IAT_FIELD = ascii("\",\"iat\":");
+    private static final byte[] EXP_FIELD = ascii(",\"exp\":");
+
+    private final SecretKey key;
+    private final long expirationMillis;
+    private final ThreadLocal<Buffers> buffers;
+
+    /**
+     * Crea el generador para la clave y duración indicadas.
+     * <br>
+     * Creates the minter for the given key and lifetime.
+     *
+     * @param key clave HMAC-SHA256 / HMAC-SHA256 key
+     * @param expirationMillis duración del token en milisegundos / token lifetime in milliseconds
+     */
+    public JwtTokenMinter(SecretKey key, long expirationMillis) {
+        this.key = key;
+        this.expirationMillis = expirationMillis;
+        this.buffers = ThreadLocal.withInitial(this::newBuffers);
+    }
+
+    /**
+     * Genera un token para el sujeto en el instante indicado.
+     * <br>
+     * Mints a token for the subject at the given instant.
+     *
+     * @param subject nombre de usuario / username
+     * @param nowMillis instante de emisión en milisegundos / issue instant in milliseconds
+     * @return token JWT compacto / compact JWT
+     */
+    public String mint(String subject, long nowMillis) {
+        Buffers b = buffers.get();
+        int payloadLength = writePayload(b, subject, nowMillis / 1000, (nowMillis + expirationMillis) / 1000);
+
+        b.token = ensure(b.token, HEADER_SEGMENT.length + 2 + encodedLength(payloadLength)
+                + encodedLength(SIGNATURE_LENGTH));
+        byte[] out = b.token;
+        System.arraycopy(HEADER_SEGMENT, 0, out, 0, HEADER_SEGMENT.length);
+        int pos = HEADER_SEGMENT.length;
+        out[pos++] = '.';
+        pos = encode(b.payload, payloadLength, out, pos);
+
+        try {
+            b.mac.update(out, 0, pos);
+            b.mac.doFinal(b.signature, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo firmar el token", e);
+        }
+        out[pos++] = '.';
+        pos = encode(b.signature, SIGNATURE_LENGTH, out, pos);
+        return new String(out, 0, pos, StandardCharsets.ISO_8859_1);
+    }
+
+    private Buffers newBuffers() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return new Buffers(mac);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo inicializar " + HMAC_ALGORITHM, e);
+        }
+    }
+
+    /**
+     * Escribe {"sub":"...","iat":N,"exp":N} en UTF-8 con los mismos escapes que Jackson, que por
+     * defecto escribe los caracteres fuera del BMP como dos escapes {@code \\uXXXX}.
+     * Writes {"sub":"...","iat":N,"exp":N} as UTF-8 with the same escaping as Jackson, which by default
+     * writes characters outside the BMP as two {@code \\uXXXX} escapes.
+     */
+    private static int writePayload(Buffers b, String subject, long iat, long exp) {
+        // Peor caso: 6 bytes por carácter (\\u00XX) más campos fijos y dos long / Worst case: 6 bytes per char plus fixed fields and two longs
+        b.payload = ensure(b.payload, SUB_OPEN.length + subject.length() * 6 + IAT_FIELD.length
+                + EXP_FIELD.length + 41);
+        byte[] p = b.payload;
+        System.arraycopy(SUB_OPEN, 0, p, 0, SUB_OPEN.length);
+        int pos = SUB_OPEN.length;
+
+        for (int i = 0; i < subject.length(); i++) {
+            char c = subject.charAt(i);
+            if (c == '"' || c == '\\') {
+                p[pos++] = '\\';
+                p[pos++] = (byte) c;
+            } else if (c < 0x20) {
+                pos = writeControl(p, pos, c);
+            } else if (c < 0x80) {
+                p[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                p[pos++] = (byte) (0xC0 | (c >> 6));
+                p[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // UTF8JsonGenerator escapa cada surrogate por separado / escapes every surrogate on its own
+                pos = writeUnicodeEscape(p, pos, c);
+            } else {
+                p[pos++] = (byte) (0xE0 | (c >> 12));
+                p[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                p[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        System.arraycopy(IAT_FIELD, 0, p, pos, IAT_FIELD.length);
+        pos = writeLong(p, pos + IAT_FIELD.length, iat);
+        System.arraycopy(EXP_FIELD, 0, p, pos, EXP_FIELD.length);
+        pos = writeLong(p, pos + EXP_FIELD.length, exp);
+        p[pos++] = '}';
+        return pos;
+    }
+
+    private static int writeControl(byte[] p, int pos, char c) {
+        byte shortEscape;
+        switch (c) {
+            case '\b': shortEscape = 'b'; break;
+            case '\t': shortEscape = 't'; break;
+            case '\n': shortEscape = 'n'; break;
+            case '\f': shortEscape = 'f'; break;
+            case '\r': shortEscape = 'r'; break;
+            default: return writeUnicodeEscape(p, pos, c);
+        }
+        p[pos++] = '\\';
+        p[pos++] = shortEscape;
+        return pos;
+    }
+
+    private static int writeUnicodeEscape(byte[] p, int pos, char c) {
+        p[pos++] = '\\';
+        p[pos++] = 'u';
+        p[pos++] = HEX[c >> 12];
+        p[pos++] = HEX[(c >> 8) & 0xF];
+        p[pos++] = HEX[(c >> 4) & 0xF];
+        p[pos++] = HEX[c & 0xF];
+        return pos;
+    }
+
+    private static int writeLong(byte[] p, int pos, long value) {
+        if (value < 0) {
+            p[pos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            p[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        return pos + digits;
+    }
+
+    /**
+     * Codifica en Base64URL sin relleno, como exige JWS.
+     * Encodes as unpadded Base64URL, as JWS requires.
+     */
+    private static int encode(byte[] src, int length, byte[] dst, int pos) {
+        int i = 0;
+        for (; i + 3 <= length; i += 3) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            dst[pos++] = BASE64URL[bits >>> 18];
+            dst[pos++] = BASE64URL[(bits >>> 12) & 0x3F];
+            dst[pos++] = BASE64URL[(bits >>> 6) & 0x3F];
+            dst[pos++] = BASE64URL[bits & 0x3F];
+        }
+        int remaining = length - i;
+        if (remaining == 1) {
+            int bits = (src[i] & 0xFF) << 16;
+            dst[pos++] = BASE64URL[bits >>> 18];
+            dst[pos++] = BASE64URL[(bits >>> 12) & 0x3F];
+        } else if (remaining == 2) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8;
+            dst[pos++] = BASE64URL[bits >>> 18];
+            dst[pos++] = BASE64URL[(bits >>> 12) & 0x3F];
+            dst[pos++] = BASE64URL[(bits >>> 6) & 0x3F];
+        }
+        return pos;
+    }
+
+    private static int encodedLength(int length) {
+        return (length * 4 + 2) / 3;
+    }
+
+    private static byte[] ensure(byte[] buffer, int capacity) {
+        return buffer.length >= capacity ? buffer : new byte[Math.max(capacity, buffer.length * 2)];
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] encodeStatic(String json) {
+        byte[] raw = json.getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[encodedLength(raw.length)];
+        encode(raw, raw.length, out, 0);
+        return out;
+    }
+
+    private static final class Buffers {
+        private final Mac mac;
+        private final byte[] signature = new byte[SIGNATURE_LENGTH];
+        private byte[] payload = new byte[128];
+        private byte[] token = new byte[256];
+
+        private Buffers(Mac mac) {
+            this.mac = mac;
+        }
+    }
+}
@@ -20,7 +20,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 
@@ -35,27 +34,29 @@ public class JwtUtil {
 
     private SecretKey key;
 
+    private JwtTokenMinter tokenMinter;
+
     @PostConstruct
     public void init() {
         key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        tokenMinter = new JwtTokenMinter(key, expiration);
     }
 
     // 1. Generar token JWT
     /**
      * Genera un token JWT para el usuario especificado.
+     * <p>
+     * Usa {@link JwtTokenMinter}, que produce los mismos bytes que el builder de jjwt con
+     * sub/iat/exp y HS256, pero sin sus asignaciones intermedias.
      * <br>
-     * Generates a JWT token for the specified user.
+     * Generates a JWT token for the specified user. Uses {@link JwtTokenMinter}, which produces the
+     * same bytes as the jjwt builder with sub/iat/exp and HS256, without its intermediate allocations.
      *
      * @param username nombre de usuario / username
      * @return token JWT generado / generated JWT token
      */
     public String generateToken(String username) {
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(key, SignatureAlgorithm.HS256)
-                .compact();
+        return tokenMinter.mint(username, System.currentTimeMillis());
     }
 
     // 2. Extraer el username del token
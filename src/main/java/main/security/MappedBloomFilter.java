@@ -0,0 +1,283 @@
+/**
+ * Filtro de Bloom almacenado en disco y mapeado en memoria.
+ * <p>
+ * El archivo contiene una cabecera de 32 bytes (magia, versión, bits, funciones hash, entradas) seguida
+ * del arreglo de bits, mapeado en segmentos de 1 GiB para admitir filtros de más de 2 GiB. Las claves
+ * son resúmenes SHA-1 de contraseñas en UTF-8 (el formato de las listas de contraseñas filtradas); las
+ * posiciones se derivan con doble hashing de los primeros 16 bytes del resumen. Las consultas leen
+ * directamente la memoria mapeada, fuera del heap y sin asignar objetos.
+ * <br>
+ * Bloom filter stored on disk and memory-mapped. The file holds a 32-byte header (magic, version, bits,
+ * hash functions, entries) followed by the bit array, mapped in 1 GiB segments so filters larger than
+ * 2 GiB are supported. Keys are SHA-1 digests of UTF-8 passwords (the format of breached-password
+ * lists); positions are derived by double hashing the first 16 bytes of the digest. Lookups read the
+ * mapped memory directly, off-heap and without allocating.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.security;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class MappedBloomFilter {
+
+    static final int MAGIC = 0x42504631; // "BPF1"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int DIGEST_BYTES = 20;
+    /** Más funciones hash no mejoran ninguna tasa útil y alargan cada consulta / More hash functions improve no useful rate and lengthen every lookup */
+    static final int MAX_HASHES = 64;
+    private static final long SEGMENT_BYTES = 1L << 30;
+
+    private static final ThreadLocal<Hasher> HASHERS = ThreadLocal.withInitial(Hasher::new);
+
+    private final MappedByteBuffer[] segments;
+    private final long numBits;
+    private final int numHashes;
+    private final long numEntries;
+
+    private MappedBloomFilter(MappedByteBuffer[] segments, long numBits, int numHashes, long numEntries) {
+        this.segments = segments;
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+        this.numEntries = numEntries;
+    }
+
+    /**
+     * Abre un filtro existente en modo solo lectura.
+     * <br>
+     * Opens an existing filter read-only.
+     *
+     * @param path archivo del filtro / filter file
+     * @return filtro mapeado / mapped filter
+     * @throws IOException si el archivo o su cabecera no son válidos / if the file or its header is invalid
+     */
+    public static MappedBloomFilter open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // leer la cabecera completa
+            }
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Formato de filtro no reconocido: " + path);
+            }
+            long bits = header.getLong();
+            int hashes = header.getInt();
+            long entries = header.getLong();
+            // Una cabecera corrupta haría fallar (bits = 0) o eternizarse (hashes enorme) cada consulta
+            // A corrupt header would make every lookup fail (bits = 0) or run forever (huge hashes)
+            if (bits <= 0 || hashes <= 0 || hashes > MAX_HASHES || entries < 0) {
+                throw new IOException("Cabecera de filtro inválida (bits=" + bits + ", hashes=" + hashes
+                        + ", entradas=" + entries + "): " + path);
+            }
+            if (channel.size() < HEADER_BYTES + dataBytes(bits)) {
+                throw new IOException("Filtro truncado: " + path);
+            }
+            return new MappedBloomFilter(map(channel, FileChannel.MapMode.READ_ONLY, bits), bits, hashes, entries);
+        }
+    }
+
+    /**
+     * Crea un filtro vacío en disco dimensionado para {@code expectedEntries} y la tasa de falsos
+     * positivos indicada.
+     * <br>
+     * Creates an empty on-disk filter sized for {@code expectedEntries} and the given false-positive rate.
+     *
+     * @param path archivo destino / target file
+     * @param expectedEntries entradas esperadas / expected entries
+     * @param falsePositiveRate tasa de falsos positivos objetivo / target false-positive rate
+     * @return filtro mapeado en escritura / writable mapped filter
+     * @throws IOException si no se puede crear / if it cannot be created
+     */
+    public static MappedBloomFilter create(Path path, long expectedEntries, double falsePositiveRate) throws IOException {
+        long entries = Math.max(1, expectedEntries);
+        long bits = Math.max(64, (long) Math.ceil(-entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        int hashes = Math.min(MAX_HASHES, Math.max(1, (int) Math.round((double) bits / entries * Math.log(2))));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(bits).putInt(hashes).putLong(entries);
+            header.rewind();
+            channel.write(header, 0);
+            return new MappedBloomFilter(map(channel, FileChannel.MapMode.READ_WRITE, bits), bits, hashes, entries);
+        }
+    }
+
+    /**
+     * Agrega un resumen SHA-1 al filtro (solo filtros creados con {@link #create}).
+     * <br>
+     * Adds a SHA-1 digest to the filter (only filters created with {@link #create}).
+     *
+     * @param digest resumen de 20 bytes / 20-byte digest
+     */
+    public void put(byte[] digest) {
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            MappedByteBuffer segment = segments[(int) ((bit >>> 3) / SEGMENT_BYTES)];
+            int offset = (int) ((bit >>> 3) % SEGMENT_BYTES);
+            segment.put(offset, (byte) (segment.get(offset) | (1 << (bit & 7))));
+        }
+    }
+
+    /**
+     * Indica si el resumen SHA-1 podría estar en el filtro.
+     * <br>
+     * Tells whether the SHA-1 digest might be in the filter.
+     *
+     * @param digest resumen de 20 bytes / 20-byte digest
+     * @return false si seguro no está / false if definitely absent
+     */
+    public boolean mightContain(byte[] digest) {
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8);
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, numBits);
+            MappedByteBuffer segment = segments[(int) ((bit >>> 3) / SEGMENT_BYTES)];
+            if ((segment.get((int) ((bit >>> 3) % SEGMENT_BYTES)) & (1 << (bit & 7))) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indica si la contraseña podría estar en el filtro, reutilizando el digest y los buffers del hilo.
+     * <br>
+     * Tells whether the password might be in the filter, reusing the thread's digest and buffers.
+     *
+     * @param password contraseña en claro / plain-text password
+     * @return false si seguro no está / false if definitely absent
+     */
+    public boolean mightContainPassword(CharSequence password) {
+        return mightContain(HASHERS.get().sha1(password));
+    }
+
+    /**
+     * Fuerza la escritura a disco de un filtro creado con {@link #create}.
+     * <br>
+     * Forces a filter created with {@link #create} to disk.
+     */
+    public void flush() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Tasa teórica de falsos positivos: (1 - e^(-k·n/m))^k.
+     * <br>
+     * Theoretical false-positive rate: (1 - e^(-k·n/m))^k.
+     *
+     * @return tasa de falsos positivos / false-positive rate
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) numHashes * numEntries / numBits), numHashes);
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    public long getNumEntries() {
+        return numEntries;
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, FileChannel.MapMode mode, long bits) throws IOException {
+        long bytes = dataBytes(bits);
+        int count = (int) ((bytes + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+        MappedByteBuffer[] segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long offset = i * SEGMENT_BYTES;
+            segments[i] = channel.map(mode, HEADER_BYTES + offset, Math.min(SEGMENT_BYTES, bytes - offset));
+        }
+        return segments;
+    }
+
+    private static long dataBytes(long bits) {
+        return (bits + 7) >>> 3;
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * SHA-1 de la contraseña en UTF-8 con buffers reutilizables por hilo.
+     * SHA-1 of the UTF-8 password with per-thread reusable buffers.
+     */
+    private static final class Hasher {
+        private final MessageDigest sha1;
+        private final byte[] digest = new byte[DIGEST_BYTES];
+        private byte[] utf8 = new byte[128];
+
+        private Hasher() {
+            try {
+                sha1 = MessageDigest.getInstance("SHA-1");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private byte[] sha1(CharSequence password) {
+            int length = encodeUtf8(password);
+            sha1.update(utf8, 0, length);
+            try {
+                sha1.digest(digest, 0, DIGEST_BYTES);
+            } catch (DigestException e) {
+                throw new IllegalStateException(e);
+            }
+            return digest;
+        }
+
+        private int encodeUtf8(CharSequence text) {
+            if (utf8.length < text.length() * 3) {
+                utf8 = new byte[text.length() * 3];
+            }
+            int pos = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    utf8[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    utf8[pos++] = (byte) (0xC0 | (c >> 6));
+                    utf8[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, text.charAt(++i));
+                    utf8[pos++] = (byte) (0xF0 | (cp >> 18));
+                    utf8[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    utf8[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    utf8[pos++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    utf8[pos++] = '?';
+                } else {
+                    utf8[pos++] = (byte) (0xE0 | (c >> 12));
+                    utf8[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    utf8[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return pos;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Servicio de auditoría de login.
+ * <p>
+ * Registra éxitos y fallos de login de forma asíncrona y permite consultar los eventos recientes
+ * de un usuario.
+ * <br>
+ * Login audit service. Records login successes and failures asynchronously and allows querying
+ * a user's recent events.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.service;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import main.audit.LoginAuditEvent;
+import main.audit.LoginAuditWriter;
+import main.entity.LoginAudit;
+import main.repository.LoginAuditRepository;
+
+@Service
+public class LoginAuditService {
+
+    private static final int MAX_RECENT = 200;
+
+    @Autowired
+    private LoginAuditWriter loginAuditWriter;
+
+    @Autowired
+    private LoginAuditRepository loginAuditRepository;
+
+    /**
+     * Registra un intento de login sin bloquear.
+     * <br>
+     * Records a login attempt without blocking.
+     *
+     * @param userName nombre de usuario / username
+     * @param ip IP de origen / source IP
+     * @param success resultado / outcome
+     */
+    public void recordLogin(String userName, String ip, boolean success) {
+        loginAuditWriter.publish(new LoginAuditEvent(userName, Instant.now(), ip, success));
+    }
+
+    /**
+     * Obtiene los eventos de login más recientes de un usuario.
+     * <br>
+     * Gets the most recent login events of a user.
+     *
+     * @param userName nombre de usuario / username
+     * @param limit número máximo de eventos / maximum number of events
+     * @return eventos del más reciente al más antiguo / events from newest to oldest
+     */
+    public List<LoginAudit> findRecent(String userName, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_RECENT));
+        return loginAuditRepository.findByUserNameOrderByOccurredAtDesc(userName, PageRequest.of(0, size));
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * Acumulador en memoria de último login y última actividad por usuario.
+ * <p>
+ * En lugar de actualizar la fila del usuario en cada login o petición autenticada, guarda el instante
+ * más reciente por id de usuario y lo vuelca periódicamente con un único UPDATE JDBC en lote. Así las
+ * escrituras sobre {@code users} crecen con los usuarios activos distintos por intervalo y no con el
+ * número de peticiones. La memoria está acotada por {@code activity.max-pending}; al superarse, los
+ * usuarios nuevos se ignoran hasta el siguiente volcado.
+ * <br>
+ * In-memory accumulator of last login and last activity per user. Instead of updating the user row on
+ * every login or authenticated request, it keeps the most recent instant per user id and flushes it
+ * periodically as a single JDBC batch UPDATE. Writes to {@code users} thus scale with distinct active
+ * users per interval rather than with request count. Memory is bounded by {@code activity.max-pending};
+ * once exceeded, new users are ignored until the next flush.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import main.sharding.ShardedUserStore;
+
+@Service
+public class UserActivityTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserActivityTracker.class);
+
+    private static final String UPDATE_SQL =
+            "UPDATE \"users\" SET last_login = COALESCE(?, last_login), last_seen = COALESCE(?, last_seen) WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Solo presente con sharding.enabled=true / Only present with sharding.enabled=true
+     */
+    @Autowired(required = false)
+    private ShardedUserStore shardedUserStore;
+
+    @Value("${activity.max-pending:100000}")
+    private int maxPending;
+
+    @Value("${activity.batch-size:1000}")
+    private int batchSize;
+
+    private final ConcurrentHashMap<Long, Activity> pending = new ConcurrentHashMap<>();
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+    private Counter droppedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        droppedCounter = meterRegistry.counter("user.activity.dropped");
+        failedCounter = meterRegistry.counter("user.activity.failed");
+        Gauge.builder("user.activity.pending", pending, ConcurrentHashMap::size)
+                .description("Usuarios con actividad pendiente de volcar / Users with unflushed activity")
+                .register(meterRegistry);
+        Gauge.builder("user.activity.flush.lag", this, UserActivityTracker::flushLagMillis)
+                .description("Antigüedad de la actividad más vieja sin volcar (ms) / Age of the oldest unflushed activity (ms)")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registra un login exitoso (también cuenta como actividad).
+     * <br>
+     * Records a successful login (also counts as activity).
+     *
+     * @param userId id del usuario / user id
+     */
+    public void recordLogin(long userId) {
+        record(userId, true);
+    }
+
+    /**
+     * Registra una petición autenticada.
+     * <br>
+     * Records an authenticated request.
+     *
+     * @param userId id del usuario / user id
+     */
+    public void recordSeen(long userId) {
+        record(userId, false);
+    }
+
+    /**
+     * Olvida la actividad pendiente de los usuarios indicados.
+     * <br>
+     * Forgets pending activity of the given users.
+     *
+     * @param userIds ids de usuario / user ids
+     */
+    public void discard(Iterable<Long> userIds) {
+        for (Long userId : userIds) {
+            pending.remove(userId);
+        }
+    }
+
+    private void record(long userId, boolean login) {
+        if (pending.size() >= maxPending && !pending.containsKey(userId)) {
+            droppedCounter.increment();
+            return;
+        }
+        long now = System.currentTimeMillis();
+        pending.compute(userId, (id, activity) -> {
+            Activity current = activity != null ? activity : new Activity();
+            current.lastSeen = Math.max(current.lastSeen, now);
+            if (login) {
+                current.lastLogin = Math.max(current.lastLogin, now);
+            }
+            return current;
+        });
+        markPending(now);
+    }
+
+    /**
+     * Vuelca la actividad acumulada en la tabla de usuarios con UPDATE en lote. Si un lote falla, sus
+     * entradas vuelven a {@code pending} para el siguiente volcado y se contabilizan en
+     * {@code user.activity.failed}.
+     * <br>
+     * Flushes the accumulated activity to the users table with batch UPDATEs. If a batch fails, its
+     * entries go back to {@code pending} for the next flush and are counted in {@code user.activity.failed}.
+     */
+    @Scheduled(fixedDelayString = "${activity.flush-interval-ms:30000}")
+    public synchronized void flush() {
+        // Siempre se reinicia: un record() concurrente pudo marcar una entrada que ya se volcó
+        // Always reset: a concurrent record() may have marked an entry that was already flushed
+        oldestPendingMillis.set(0);
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Activity> batch = new LinkedHashMap<>();
+        int written = 0;
+        for (Long userId : pending.keySet()) {
+            // remove() es atómico respecto a compute(): nadie modifica la entrada tras retirarla
+            Activity activity = pending.remove(userId);
+            if (activity == null) {
+                continue;
+            }
+            batch.put(userId, activity);
+            if (batch.size() >= batchSize) {
+                written += write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += write(batch);
+        }
+        logger.debug("Actividad de usuarios volcada: " + written + " filas");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private int write(Map<Long, Activity> batch) {
+        List<Object[]> args = new ArrayList<>(batch.size());
+        batch.forEach((userId, activity) ->
+                args.add(new Object[] { timestamp(activity.lastLogin), timestamp(activity.lastSeen), userId }));
+        try {
+            if (shardedUserStore != null) {
+                shardedUserStore.updateActivity(args);
+            } else {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+            }
+            return batch.size();
+        } catch (RuntimeException e) {
+            logger.error("No se pudo volcar la actividad de " + batch.size() + " usuarios, se reintentará", e);
+            failedCounter.increment(batch.size());
+            batch.forEach((userId, activity) -> {
+                pending.merge(userId, activity, Activity::latest);
+                markPending(activity.lastSeen);
+            });
+            return 0;
+        }
+    }
+
+    /**
+     * Recuerda el instante de la actividad pendiente más antigua.
+     * <br>
+     * Remembers the instant of the oldest pending activity.
+     */
+    private void markPending(long millis) {
+        for (;;) {
+            long oldest = oldestPendingMillis.get();
+            if ((oldest != 0 && oldest <= millis) || oldestPendingMillis.compareAndSet(oldest, millis)) {
+                return;
+            }
+        }
+    }
+
+    private double flushLagMillis() {
+        long oldest = oldestPendingMillis.get();
+        return oldest == 0 || pending.isEmpty() ? 0 : System.currentTimeMillis() - oldest;
+    }
+
+    private static SqlParameterValue timestamp(long millis) {
+        return new SqlParameterValue(Types.TIMESTAMP, millis == 0 ? null : new Timestamp(millis));
+    }
+
+    private static final class Activity {
+        private long lastLogin;
+        private long lastSeen;
+
+        private static Activity latest(Activity a, Activity b) {
+            a.lastLogin = Math.max(a.lastLogin, b.lastLogin);
+            a.lastSeen = Math.max(a.lastSeen, b.lastSeen);
+            return a;
+        }
+    }
+}
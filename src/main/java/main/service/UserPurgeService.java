@@ -0,0 +1,167 @@
+/**
+ * Servicio de purga masiva de usuarios dados de baja.
+ * <p>
+ * Elimina físicamente los usuarios con baja lógica anterior a una fecha, junto con sus filas de
+ * {@code user_role}, en lotes de tamaño configurable. Cada lote usa dos DELETE por conjunto en una
+ * transacción corta y entre lotes se hace una pausa para no acaparar conexiones ni bloqueos frente
+ * al tráfico en línea. Se ejecuta en un hilo propio y publica su progreso tras cada lote.
+ * <br>
+ * Bulk purge service for soft-deleted users. Physically removes users soft-deleted before a given
+ * instant, together with their {@code user_role} rows, in batches of configurable size. Each batch
+ * runs two set-based DELETEs in a short transaction and pauses between batches so it does not starve
+ * online traffic of connections or locks. It runs on its own thread and publishes progress after
+ * every batch.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import main.dto.PurgeProgress;
+import main.dto.PurgeProgress.Status;
+
+@Service
+public class UserPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserPurgeService.class);
+
+    private static final String COUNT_SQL =
+            "SELECT COUNT(*) FROM \"users\" WHERE deleted_at IS NOT NULL AND deleted_at < ?";
+    private static final String SELECT_BATCH_SQL =
+            "SELECT id FROM \"users\" WHERE deleted_at IS NOT NULL AND deleted_at < ? ORDER BY id LIMIT ?";
+    private static final String DELETE_ROLES_SQL = "DELETE FROM user_role WHERE user_id IN (:ids)";
+    private static final String DELETE_USERS_SQL = "DELETE FROM \"users\" WHERE id IN (:ids)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserSearchIndex userSearchIndex;
+
+    @Autowired
+    private UserActivityTracker userActivityTracker;
+
+    @Value("${user.purge.batch-size:500}")
+    private int batchSize;
+
+    @Value("${user.purge.pause-ms:100}")
+    private long pauseMs;
+
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private final AtomicReference<PurgeProgress> progress = new AtomicReference<>(PurgeProgress.idle());
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Inicia la purga de usuarios dados de baja antes del instante indicado. Si ya hay una en curso,
+     * retorna su progreso sin iniciar otra.
+     * <br>
+     * Starts purging users soft-deleted before the given instant. If one is already running, returns
+     * its progress without starting another.
+     *
+     * @param deletedBefore límite de fecha de baja / soft-delete cutoff
+     * @return progreso inicial / initial progress
+     */
+    public synchronized PurgeProgress startPurge(Instant deletedBefore) {
+        PurgeProgress current = progress.get();
+        if (current.getStatus() == Status.RUNNING) {
+            return current;
+        }
+        Timestamp cutoff = Timestamp.from(deletedBefore);
+        Long total = jdbcTemplate.queryForObject(COUNT_SQL, Long.class, cutoff);
+        PurgeProgress started = new PurgeProgress(Status.RUNNING, total != null ? total : 0, 0, 0,
+                Instant.now(), null, null);
+        progress.set(started);
+        executor.execute(() -> runPurge(cutoff, started));
+        return started;
+    }
+
+    /**
+     * Retorna el progreso de la última purga.
+     * <br>
+     * Returns the progress of the latest purge.
+     *
+     * @return progreso / progress
+     */
+    public PurgeProgress getProgress() {
+        return progress.get();
+    }
+
+    private void runPurge(Timestamp cutoff, PurgeProgress started) {
+        long purged = 0;
+        int batches = 0;
+        try {
+            for (;;) {
+                List<Long> ids = jdbcTemplate.queryForList(SELECT_BATCH_SQL, Long.class, cutoff, batchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    Map<String, List<Long>> params = Map.of("ids", ids);
+                    namedJdbcTemplate.update(DELETE_ROLES_SQL, params);
+                    namedJdbcTemplate.update(DELETE_USERS_SQL, params);
+                });
+                userSearchIndex.remove(ids);
+                userActivityTracker.discard(ids);
+
+                purged += ids.size();
+                batches++;
+                progress.set(new PurgeProgress(Status.RUNNING, started.getTotal(), purged, batches,
+                        started.getStartedAt(), null, null));
+                logger.info("Purga de usuarios: lote " + batches + ", " + purged + "/" + started.getTotal());
+
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+            progress.set(new PurgeProgress(Status.COMPLETED, started.getTotal(), purged, batches,
+                    started.getStartedAt(), Instant.now(), null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.set(new PurgeProgress(Status.FAILED, started.getTotal(), purged, batches,
+                    started.getStartedAt(), Instant.now(), "Interrumpida"));
+        } catch (RuntimeException e) {
+            logger.error("La purga de usuarios falló tras " + purged + " usuarios", e);
+            progress.set(new PurgeProgress(Status.FAILED, started.getTotal(), purged, batches,
+                    started.getStartedAt(), Instant.now(), e.getMessage()));
+        }
+    }
+}
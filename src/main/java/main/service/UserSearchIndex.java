@@ -0,0 +1,443 @@
+/**
+ * Índice en memoria para búsqueda por prefijo (typeahead) de usuarios.
+ * <p>
+ * Mantiene un arreglo ordenado de claves normalizadas (nombre de usuario y email, en minúsculas y
+ * sin acentos) con su usuario asociado. Las búsquedas hacen una búsqueda binaria del prefijo y
+ * recorren las claves contiguas, sin bloqueos y sin tocar la base de datos. Las modificaciones
+ * publican una copia nueva (copy-on-write). Las altas van a un delta ordenado pequeño que las búsquedas
+ * recorren junto al arreglo principal, y que se fusiona con él al llenarse, de modo que un registro no
+ * copia el índice completo.
+ * <br>
+ * In-memory index for prefix (typeahead) user search. Keeps a sorted array of normalized keys
+ * (username and email, lower-cased and accent-stripped) with their user. Lookups binary-search the
+ * prefix and scan the contiguous keys, lock-free and without touching the database. Mutations publish
+ * a new copy (copy-on-write). Additions go to a small sorted delta that searches scan alongside the main
+ * array and that is merged into it once full, so a registration does not copy the whole index.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import main.dto.UserDTO;
+import main.entity.User;
+import main.sharding.ShardedUserStore;
+
+@Service
+public class UserSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final String SELECT_SQL = "SELECT id, user_name, email FROM \"users\" WHERE deleted_at IS NULL";
+
+    /** Claves en el delta antes de fusionarlo / Keys in the delta before merging it */
+    private static final int DELTA_MERGE_THRESHOLD = 1024;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Solo presente con sharding.enabled=true / Only present with sharding.enabled=true
+     */
+    @Autowired(required = false)
+    private ShardedUserStore shardedUserStore;
+
+    private final Object writeLock = new Object();
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new Entry[0], new String[0], new Entry[0]);
+
+    /**
+     * Cambios recibidos mientras una reconstrucción lee la tabla; se reaplican sobre el resultado.
+     * Changes received while a rebuild reads the table; they are replayed on top of the result.
+     */
+    private List<Runnable> changesDuringRebuild;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("user.search.index.entries", this,
+                        index -> index.snapshot.keys.length + index.snapshot.deltaKeys.length)
+                .description("Claves en el índice de búsqueda / Keys in the search index")
+                .register(meterRegistry);
+        Gauge.builder("user.search.index.bytes", this, index -> index.snapshot.estimatedBytes())
+                .description("Memoria estimada del índice de búsqueda / Estimated search index memory")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("user.search.index.delta", this, index -> index.snapshot.deltaKeys.length)
+                .description("Claves pendientes de fusionar / Keys awaiting merge")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reconstruye el índice recorriendo la tabla de usuarios (o todos los shards). Las altas y bajas que
+     * llegan mientras se lee la tabla se registran y se reaplican sobre el índice nuevo antes de
+     * publicarlo, para no perderlas.
+     * <br>
+     * Rebuilds the index by streaming the users table (or every shard). Additions and removals arriving
+     * while the table is read are recorded and replayed on the new index before publishing it, so none
+     * are lost.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (writeLock) {
+            changesDuringRebuild = new ArrayList<>();
+        }
+        List<Entry> entries = new ArrayList<>();
+        try {
+            if (shardedUserStore != null) {
+                for (User user : shardedUserStore.findAll()) {
+                    entries.add(new Entry(user.getId(), user.getUserName(), user.getEmail()));
+                }
+            } else {
+                jdbcTemplate.query(SELECT_SQL, (RowCallbackHandler) rs ->
+                        entries.add(new Entry(rs.getLong("id"), rs.getString("user_name"), rs.getString("email"))));
+            }
+        } catch (RuntimeException e) {
+            synchronized (writeLock) {
+                changesDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        List<KeyRef> refs = new ArrayList<>(entries.size() * 2);
+        for (Entry entry : entries) {
+            addRefs(refs, entry);
+        }
+        refs.sort(Comparator.comparing(ref -> ref.key));
+
+        String[] keys = new String[refs.size()];
+        Entry[] values = new Entry[refs.size()];
+        for (int i = 0; i < refs.size(); i++) {
+            keys[i] = refs.get(i).key;
+            values[i] = refs.get(i).entry;
+        }
+        int replayed;
+        synchronized (writeLock) {
+            snapshot = new Snapshot(keys, values, new String[0], new Entry[0]);
+            replayed = changesDuringRebuild.size();
+            for (Runnable change : changesDuringRebuild) {
+                change.run();
+            }
+            changesDuringRebuild = null;
+        }
+        logger.info("Índice de búsqueda de usuarios construido: " + entries.size() + " usuarios, "
+                + replayed + " cambios concurrentes reaplicados, " + snapshot.estimatedBytes() + " bytes estimados");
+    }
+
+    /**
+     * Agrega un usuario al índice.
+     * <br>
+     * Adds a user to the index.
+     *
+     * @param id id del usuario / user id
+     * @param userName nombre de usuario / username
+     * @param email correo electrónico / email
+     */
+    public void add(long id, String userName, String email) {
+        Entry entry = new Entry(id, userName, email);
+        synchronized (writeLock) {
+            addLocked(entry);
+            if (changesDuringRebuild != null) {
+                // La lectura pudo ver o no la fila: se reemplaza para no duplicar claves
+                // The read may or may not have seen the row: replace it to avoid duplicate keys
+                changesDuringRebuild.add(() -> {
+                    removeLocked(Set.of(id));
+                    addLocked(entry);
+                });
+            }
+        }
+    }
+
+    /**
+     * Elimina un usuario del índice.
+     * <br>
+     * Removes a user from the index.
+     *
+     * @param id id del usuario / user id
+     */
+    public void remove(long id) {
+        remove(Set.of(id));
+    }
+
+    /**
+     * Elimina varios usuarios del índice en una sola publicación.
+     * <br>
+     * Removes several users from the index in a single publication.
+     *
+     * @param ids ids de usuario / user ids
+     */
+    public void remove(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> toRemove = ids instanceof Set ? (Set<Long>) ids : new HashSet<>(ids);
+        synchronized (writeLock) {
+            removeLocked(toRemove);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(() -> removeLocked(toRemove));
+            }
+        }
+    }
+
+    /**
+     * Busca usuarios cuyo nombre o email empieza por el prefijo dado.
+     * <br>
+     * Finds users whose username or email starts with the given prefix.
+     *
+     * @param query prefijo buscado / searched prefix
+     * @param limit máximo de resultados / maximum results
+     * @return usuarios encontrados, en orden de clave / found users, in key order
+     */
+    public List<UserDTO> search(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<UserDTO> results = new ArrayList<>(Math.min(limit, 32));
+        Snapshot current = snapshot;
+        int i = lowerBound(current.keys, prefix);
+        int j = lowerBound(current.deltaKeys, prefix);
+        // Mezcla ordenada del arreglo principal y el delta / Sorted merge of the main array and the delta
+        while (results.size() < limit) {
+            boolean inMain = i < current.keys.length && current.keys[i].startsWith(prefix);
+            boolean inDelta = j < current.deltaKeys.length && current.deltaKeys[j].startsWith(prefix);
+            Entry entry;
+            if (inMain && (!inDelta || current.keys[i].compareTo(current.deltaKeys[j]) <= 0)) {
+                entry = current.entries[i++];
+            } else if (inDelta) {
+                entry = current.deltaEntries[j++];
+            } else {
+                break;
+            }
+            if (!containsId(results, entry.id)) {
+                results.add(new UserDTO(entry.id, entry.userName, entry.email, null, null));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Normaliza un texto para el índice: sin acentos, en minúsculas y sin espacios extremos.
+     * <br>
+     * Normalizes text for the index: accent-stripped, lower-cased and trimmed.
+     *
+     * @param text texto / text
+     * @return texto normalizado / normalized text
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(text.trim(), Normalizer.Form.NFD)).replaceAll("");
+        return stripped.toLowerCase(Locale.ROOT);
+    }
+
+    private void addLocked(Entry entry) {
+        List<KeyRef> refs = new ArrayList<>(2);
+        addRefs(refs, entry);
+        Snapshot current = snapshot;
+        String[] keys = current.deltaKeys;
+        Entry[] values = current.deltaEntries;
+        for (KeyRef ref : refs) {
+            int insertAt = lowerBound(keys, ref.key);
+            String[] newKeys = new String[keys.length + 1];
+            Entry[] newValues = new Entry[values.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(values, 0, newValues, 0, insertAt);
+            newKeys[insertAt] = ref.key;
+            newValues[insertAt] = ref.entry;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(values, insertAt, newValues, insertAt + 1, values.length - insertAt);
+            keys = newKeys;
+            values = newValues;
+        }
+        if (keys.length >= DELTA_MERGE_THRESHOLD) {
+            snapshot = merge(current.keys, current.entries, keys, values);
+        } else {
+            snapshot = new Snapshot(current.keys, current.entries, keys, values);
+        }
+    }
+
+    /**
+     * Fusiona el delta con el arreglo principal en una pasada; su costo se reparte entre las
+     * {@code DELTA_MERGE_THRESHOLD} altas que lo llenaron.
+     * Merges the delta into the main array in one pass; its cost is spread over the
+     * {@code DELTA_MERGE_THRESHOLD} additions that filled it.
+     */
+    private static Snapshot merge(String[] keys, Entry[] values, String[] deltaKeys, Entry[] deltaValues) {
+        String[] mergedKeys = new String[keys.length + deltaKeys.length];
+        Entry[] mergedValues = new Entry[mergedKeys.length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < mergedKeys.length; k++) {
+            if (j >= deltaKeys.length || (i < keys.length && keys[i].compareTo(deltaKeys[j]) <= 0)) {
+                mergedKeys[k] = keys[i];
+                mergedValues[k] = values[i++];
+            } else {
+                mergedKeys[k] = deltaKeys[j];
+                mergedValues[k] = deltaValues[j++];
+            }
+        }
+        return new Snapshot(mergedKeys, mergedValues, new String[0], new Entry[0]);
+    }
+
+    private void removeLocked(Set<Long> toRemove) {
+        Snapshot current = snapshot;
+        Snapshot filtered = current.without(toRemove);
+        if (filtered != current) {
+            snapshot = filtered;
+        }
+    }
+
+    private static int lowerBound(String[] keys, String key) {
+        int pos = Arrays.binarySearch(keys, key);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    private static void addRefs(List<KeyRef> refs, Entry entry) {
+        String userKey = normalize(entry.userName);
+        String emailKey = normalize(entry.email);
+        if (!userKey.isEmpty()) {
+            refs.add(new KeyRef(userKey, entry));
+        }
+        if (!emailKey.isEmpty() && !emailKey.equals(userKey)) {
+            refs.add(new KeyRef(emailKey, entry));
+        }
+    }
+
+    private static boolean containsId(List<UserDTO> results, long id) {
+        for (UserDTO dto : results) {
+            if (dto.getId() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Entry {
+        private final long id;
+        private final String userName;
+        private final String email;
+
+        private Entry(long id, String userName, String email) {
+            this.id = id;
+            this.userName = userName;
+            this.email = email;
+        }
+    }
+
+    private static final class KeyRef {
+        private final String key;
+        private final Entry entry;
+
+        private KeyRef(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+    }
+
+    private static final class Snapshot {
+        private final String[] keys;
+        private final Entry[] entries;
+        private final String[] deltaKeys;
+        private final Entry[] deltaEntries;
+        private volatile long estimatedBytes = -1;
+
+        private Snapshot(String[] keys, Entry[] entries, String[] deltaKeys, Entry[] deltaEntries) {
+            this.keys = keys;
+            this.entries = entries;
+            this.deltaKeys = deltaKeys;
+            this.deltaEntries = deltaEntries;
+        }
+
+        /**
+         * Copia sin los ids indicados, o esta misma instancia si ninguno está presente.
+         * Copy without the given ids, or this same instance if none is present.
+         */
+        private Snapshot without(Set<Long> ids) {
+            String[] newKeys = new String[keys.length];
+            Entry[] newEntries = new Entry[entries.length];
+            int size = filter(keys, entries, ids, newKeys, newEntries);
+            String[] newDeltaKeys = new String[deltaKeys.length];
+            Entry[] newDeltaEntries = new Entry[deltaEntries.length];
+            int deltaSize = filter(deltaKeys, deltaEntries, ids, newDeltaKeys, newDeltaEntries);
+            if (size == keys.length && deltaSize == deltaKeys.length) {
+                return this;
+            }
+            return new Snapshot(Arrays.copyOf(newKeys, size), Arrays.copyOf(newEntries, size),
+                    Arrays.copyOf(newDeltaKeys, deltaSize), Arrays.copyOf(newDeltaEntries, deltaSize));
+        }
+
+        private static int filter(String[] keys, Entry[] entries, Set<Long> ids, String[] outKeys, Entry[] outEntries) {
+            int size = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (!ids.contains(entries[i].id)) {
+                    outKeys[size] = keys[i];
+                    outEntries[size] = entries[i];
+                    size++;
+                }
+            }
+            return size;
+        }
+
+        // Se calcula bajo demanda para no encarecer cada publicación / Computed lazily so publications stay cheap
+        private long estimatedBytes() {
+            long bytes = estimatedBytes;
+            if (bytes < 0) {
+                bytes = estimate(keys, entries) + estimate(deltaKeys, deltaEntries);
+                estimatedBytes = bytes;
+            }
+            return bytes;
+        }
+
+        /**
+         * Estimación con oops comprimidos: cabecera de String (24) + byte[] (16 + longitud),
+         * 4 bytes por referencia en los arreglos y 24 bytes por entrada más sus cadenas originales.
+         * Estimate with compressed oops: String header (24) + byte[] (16 + length),
+         * 4 bytes per array reference and 24 bytes per entry plus its original strings.
+         */
+        private static long estimate(String[] keys, Entry[] entries) {
+            long bytes = 32L + 4L * keys.length + 4L * entries.length;
+            for (String key : keys) {
+                bytes += 40L + key.length();
+            }
+            Set<Long> seen = new HashSet<>();
+            for (Entry entry : entries) {
+                if (seen.add(entry.id)) {
+                    bytes += 24L + stringBytes(entry.userName) + stringBytes(entry.email);
+                }
+            }
+            return bytes;
+        }
+
+        private static long stringBytes(String value) {
+            return value == null ? 0 : 40L + value.length();
+        }
+    }
+}
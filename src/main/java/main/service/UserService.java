@@ -11,8 +11,10 @@
  */
 package main.service;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,10 +23,19 @@ import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import main.dto.UserAuthInfo;
 import main.dto.UserDTO;
 import main.entity.User;
+import main.exception.BreachedPasswordException;
 import main.repository.UserRepository;
+import main.replica.ReadRoutingContext;
+import main.replica.ReadYourWritesTracker;
+import main.repository.UserRepository.UserAuthRow;
+import main.repository.UserRepository.UserVersion;
+import main.security.BreachedPasswordFilter;
+import main.sharding.ShardedUserStore;
 
 @Service
 public class UserService {
@@ -35,6 +46,30 @@ public class UserService {
     @Autowired
     public BCryptPasswordEncoder passwordEncoder;
 
+    @Autowired
+    public LoginAuditService loginAuditService;
+
+    @Autowired
+    public UserActivityTracker userActivityTracker;
+
+    @Autowired
+    public UserSearchIndex userSearchIndex;
+
+    @Autowired
+    public BreachedPasswordFilter breachedPasswordFilter;
+
+    /**
+     * Solo presente con sharding.enabled=true / Only present with sharding.enabled=true
+     */
+    @Autowired(required = false)
+    public ShardedUserStore shardedUserStore;
+
+    /**
+     * Solo presente con replicas.enabled=true / Only present with replicas.enabled=true
+     */
+    @Autowired(required = false)
+    public ReadYourWritesTracker readYourWritesTracker;
+
 
     /**
      * Registra un nuevo usuario en el sistema.
@@ -46,6 +81,14 @@ public class UserService {
      */
     public User registerUser(UserDTO userDTO) {
 
+        if (breachedPasswordFilter != null && breachedPasswordFilter.isBreached(userDTO.getPassword())) {
+            throw new BreachedPasswordException("La contraseña aparece en listas de contraseñas filtradas");
+        }
+
+        if (shardedUserStore != null) {
+            return registerSharded(userDTO);
+        }
+
         // Verificar si el email o username ya existen
         if (userRepository.existsByEmail(userDTO.getEmail()) || userRepository.existsByUserName(userDTO.getUserName())) {
             throw new RuntimeException("El usuario ya existe");
@@ -62,7 +105,32 @@ public class UserService {
     
         userRepository.save(user);
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        if (readYourWritesTracker != null) {
+            readYourWritesTracker.recordWrite(saved.getUserName());
+        }
+        if (userSearchIndex != null) {
+            userSearchIndex.add(saved.getId(), saved.getUserName(), saved.getEmail());
+        }
+        return saved;
+    }
+
+    /**
+     * Registra el usuario en su shard; la unicidad entre shards la garantiza {@link ShardedUserStore}.
+     * <br>
+     * Registers the user on its shard; {@link ShardedUserStore} enforces uniqueness across shards.
+     */
+    private User registerSharded(UserDTO userDTO) {
+        User user = new User();
+        user.setUserName(userDTO.getUserName());
+        user.setEmail(userDTO.getEmail());
+        user.setPassword(passwordEncoder.encode(userDTO.getPassword()));
+        user.setRole(new ArrayList<>(Arrays.asList("USER")));
+        User saved = shardedUserStore.register(user);
+        if (userSearchIndex != null) {
+            userSearchIndex.add(saved.getId(), saved.getUserName(), saved.getEmail());
+        }
+        return saved;
     }
 
     /**
@@ -73,8 +141,56 @@ public class UserService {
      * @param username nombre de usuario / username
      * @return usuario encontrado (opcional) / found user (optional)
      */
+    @Transactional(readOnly = true)
     public Optional<User> findByUserName(String username){
-        return userRepository.findByUserName(username);
+        if (shardedUserStore != null) {
+            return shardedUserStore.findByUserName(username);
+        }
+        return ReadRoutingContext.forUser(username, () -> userRepository.findByUserName(username));
+    }
+
+    /**
+     * Obtiene el id y la versión del usuario sin cargar la entidad completa.
+     * <br>
+     * Gets the user id and version without loading the full entity.
+     *
+     * @param username nombre de usuario / username
+     * @return id y versión (opcional) / id and version (optional)
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserVersion> findVersionByUserName(String username) {
+        if (shardedUserStore != null) {
+            return shardedUserStore.findByUserName(username).map(UserService::versionOf);
+        }
+        return ReadRoutingContext.forUser(username, () -> userRepository.findVersionByUserName(username));
+    }
+
+    /**
+     * Obtiene id, versión y roles del usuario para autenticar una petición, sin cargar la entidad.
+     * <br>
+     * Gets the user id, version and roles to authenticate a request, without loading the entity.
+     *
+     * @param username nombre de usuario / username
+     * @return datos de autenticación (opcional) / authentication data (optional)
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserAuthInfo> findAuthInfo(String username) {
+        if (shardedUserStore != null) {
+            return shardedUserStore.findByUserName(username)
+                    .map(user -> new UserAuthInfo(user.getId(), user.getVersion(), user.getRole()));
+        }
+        List<UserAuthRow> rows = ReadRoutingContext.forUser(username,
+                () -> userRepository.findAuthRowsByUserName(username));
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        List<String> roles = new ArrayList<>(rows.size());
+        for (UserAuthRow row : rows) {
+            if (row.getRole() != null) {
+                roles.add(row.getRole());
+            }
+        }
+        return Optional.of(new UserAuthInfo(rows.get(0).getId(), rows.get(0).getVersion(), roles));
     }
 
     /**
@@ -85,7 +201,11 @@ public class UserService {
      * @param email correo electrónico / email
      * @return usuario encontrado (opcional) / found user (optional)
      */
+    @Transactional(readOnly = true)
     public Optional<User> findByEmail(String email) {
+        if (shardedUserStore != null) {
+            return shardedUserStore.findByEmail(email);
+        }
         return userRepository.findByEmail(email);
     }
 
@@ -96,19 +216,67 @@ public class UserService {
      *
      * @return lista de usuarios / list of users
      */
+    @Transactional(readOnly = true)
     public List<User> findAllUsers() {
+        if (shardedUserStore != null) {
+            return shardedUserStore.findAll();
+        }
         return userRepository.findAll();
     }
 
     /**
-     * Elimina un usuario por su ID.
+     * Busca usuarios por rol.
+     * <br>
+     * Finds users by role.
+     *
+     * @param role rol de usuario / user role
+     * @return lista de usuarios / list of users
+     */
+    @Transactional(readOnly = true)
+    public List<User> findByRole(String role) {
+        if (shardedUserStore != null) {
+            return shardedUserStore.findByRole(role);
+        }
+        return userRepository.findByRole(role);
+    }
+
+    /**
+     * Elimina (baja lógica) un usuario por su ID.
      * <br>
-     * Deletes a user by ID.
+     * Soft-deletes a user by ID.
      *
      * @param id identificador del usuario / user ID
      */
     public void deleteUser(Long id){
-        this.userRepository.deleteById(id);
+        softDeleteUsers(List.of(id));
+    }
+
+    /**
+     * Da de baja lógica a varios usuarios con una sola sentencia e invalida sus entradas en memoria.
+     * Las filas se eliminan físicamente más tarde con {@link UserPurgeService}. Con sharding la baja es
+     * física e inmediata, porque el esquema particionado no tiene baja lógica.
+     * <br>
+     * Soft-deletes several users with a single statement and invalidates their in-memory entries.
+     * Rows are physically removed later by {@link UserPurgeService}. With sharding the deletion is
+     * physical and immediate, because the sharded schema has no soft delete.
+     *
+     * @param ids identificadores de usuario / user IDs
+     * @return usuarios dados de baja / soft-deleted users
+     */
+    public int softDeleteUsers(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = shardedUserStore != null
+                ? shardedUserStore.deleteByIds(ids)
+                : userRepository.softDeleteByIds(ids, Instant.now());
+        if (userSearchIndex != null) {
+            userSearchIndex.remove(ids);
+        }
+        if (userActivityTracker != null) {
+            userActivityTracker.discard(ids);
+        }
+        return deleted;
     }
 
     /**
@@ -121,12 +289,51 @@ public class UserService {
      * @return usuario autenticado / authenticated user
      */
     public User login(String username, String password) {
-        User user = userRepository.findByUserName(username)
-            .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+        return login(username, password, null);
+    }
+
+    /**
+     * Valida las credenciales, registra el intento en la auditoría y retorna el usuario si son correctas.
+     * <br>
+     * Validates credentials, records the attempt in the audit trail and returns the user if correct.
+     *
+     * @param username nombre de usuario / username
+     * @param password contraseña / password
+     * @param ip IP de origen / source IP
+     * @return usuario autenticado / authenticated user
+     */
+    public User login(String username, String password, String ip) {
+        boolean success = false;
+        try {
+            User user = findByUserName(username)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
-        if (passwordEncoder.matches(password, user.getPassword())) {
-            throw new BadCredentialsException("Contraseña incorrecta");
+            if (!passwordEncoder.matches(password, user.getPassword())) {
+                throw new BadCredentialsException("Contraseña incorrecta");
+            }
+            success = true;
+            if (userActivityTracker != null) {
+                userActivityTracker.recordLogin(user.getId());
+            }
+            return user;
+        } finally {
+            if (loginAuditService != null) {
+                loginAuditService.recordLogin(username, ip, success);
+            }
         }
-        return user;
+    }
+
+    private static UserVersion versionOf(User user) {
+        return new UserVersion() {
+            @Override
+            public Long getId() {
+                return user.getId();
+            }
+
+            @Override
+            public Long getVersion() {
+                return user.getVersion();
+            }
+        };
     }
 }
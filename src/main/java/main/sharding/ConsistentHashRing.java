@@ -0,0 +1,159 @@
+/**
+ * Anillo de hashing consistente con nodos virtuales.
+ * <p>
+ * Cada shard aporta varios tokens (nodos virtuales) al anillo; una clave pertenece al primer token
+ * igual o mayor que su hash, dando la vuelta al final. Las instancias son inmutables: agregar un token
+ * retorna un anillo nuevo, lo que permite publicar cambios de forma atómica durante el rebalanceo.
+ * <br>
+ * Consistent hashing ring with virtual nodes. Each shard contributes several tokens (virtual nodes) to
+ * the ring; a key belongs to the first token greater than or equal to its hash, wrapping around at the
+ * end. Instances are immutable: adding a token returns a new ring, which lets rebalancing publish
+ * changes atomically.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, Integer> tokens;
+
+    private ConsistentHashRing(NavigableMap<Long, Integer> tokens) {
+        this.tokens = Collections.unmodifiableNavigableMap(tokens);
+    }
+
+    /**
+     * Crea un anillo con {@code shards} shards y {@code virtualNodes} tokens por shard.
+     * <br>
+     * Creates a ring with {@code shards} shards and {@code virtualNodes} tokens per shard.
+     *
+     * @param shards número de shards / number of shards
+     * @param virtualNodes tokens por shard / tokens per shard
+     * @return anillo / ring
+     */
+    public static ConsistentHashRing of(int shards, int virtualNodes) {
+        NavigableMap<Long, Integer> tokens = new TreeMap<>();
+        for (int shard = 0; shard < shards; shard++) {
+            for (long token : tokensFor(shard, virtualNodes)) {
+                tokens.put(token, shard);
+            }
+        }
+        return new ConsistentHashRing(tokens);
+    }
+
+    /**
+     * Calcula los tokens de un shard, ordenados.
+     * <br>
+     * Computes a shard's tokens, sorted.
+     *
+     * @param shard índice del shard / shard index
+     * @param virtualNodes tokens por shard / tokens per shard
+     * @return tokens / tokens
+     */
+    public static List<Long> tokensFor(int shard, int virtualNodes) {
+        List<Long> result = new ArrayList<>(virtualNodes);
+        for (int vnode = 0; vnode < virtualNodes; vnode++) {
+            result.add(hash("shard-" + shard + "-vnode-" + vnode));
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Retorna un anillo nuevo con el token agregado.
+     * <br>
+     * Returns a new ring with the token added.
+     *
+     * @param token token / token
+     * @param shard shard dueño / owning shard
+     * @return anillo nuevo / new ring
+     */
+    public ConsistentHashRing withToken(long token, int shard) {
+        NavigableMap<Long, Integer> copy = new TreeMap<>(tokens);
+        copy.put(token, shard);
+        return new ConsistentHashRing(copy);
+    }
+
+    /**
+     * Shard dueño de un hash.
+     * <br>
+     * Shard owning a hash.
+     *
+     * @param hash hash de la clave / key hash
+     * @return índice del shard / shard index
+     */
+    public int shardFor(long hash) {
+        Map.Entry<Long, Integer> entry = tokens.ceilingEntry(hash);
+        return (entry != null ? entry : tokens.firstEntry()).getValue();
+    }
+
+    /**
+     * Indica si el token ya forma parte del anillo.
+     * <br>
+     * Tells whether the token is already part of the ring.
+     *
+     * @param token token / token
+     * @return true si está / true if present
+     */
+    public boolean hasToken(long token) {
+        return tokens.containsKey(token);
+    }
+
+    /**
+     * Token anterior (exclusivo) del rango que terminaría en {@code token}.
+     * <br>
+     * Previous token (exclusive bound) of the range that would end at {@code token}.
+     *
+     * @param token token / token
+     * @return token anterior, dando la vuelta / previous token, wrapping around
+     */
+    public long predecessor(long token) {
+        Long lower = tokens.lowerKey(token);
+        return lower != null ? lower : tokens.lastKey();
+    }
+
+    /**
+     * Indica si un hash cae en el rango (start, end] del anillo, considerando la vuelta.
+     * <br>
+     * Tells whether a hash falls in the ring range (start, end], taking wrap-around into account.
+     *
+     * @param hash hash / hash
+     * @param start inicio exclusivo / exclusive start
+     * @param end fin inclusivo / inclusive end
+     * @return true si pertenece / true if it belongs
+     */
+    public static boolean inRange(long hash, long start, long end) {
+        return start < end ? hash > start && hash <= end : hash > start || hash <= end;
+    }
+
+    /**
+     * Hash de 64 bits (FNV-1a con mezcla final de MurmurHash3) sobre UTF-8.
+     * <br>
+     * 64-bit hash (FNV-1a with MurmurHash3's final mix) over UTF-8.
+     *
+     * @param key clave / key
+     * @return hash / hash
+     */
+    public static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,556 @@
+/**
+ * Almacenamiento de usuarios particionado horizontalmente en N datasources.
+ * <p>
+ * Cada usuario vive en el shard elegido por hashing consistente de su nombre de usuario normalizado.
+ * Un directorio email → usuario en el shard 0 permite buscar por email y garantiza la unicidad del email
+ * entre shards (su clave primaria actúa como reserva); la unicidad del nombre la garantiza el shard
+ * dueño. Las consultas multi-shard ({@link #findAll()}, {@link #findByRole(String)}) se ejecutan en
+ * paralelo y se combinan. {@link #addShard(DataSource)} rebalancea en línea moviendo un nodo virtual
+ * cada vez: publica el anillo nuevo, copia las filas del rango y las borra del origen; mientras tanto
+ * las lecturas que no encuentran la fila en el dueño nuevo consultan el anterior. Si la copia falla, ese
+ * respaldo se mantiene hasta que {@link #resumeMigrations()} la complete.
+ * <br>
+ * User storage horizontally partitioned across N datasources. Each user lives on the shard chosen by
+ * consistent hashing of its normalized username. An email → user directory on shard 0 allows lookups
+ * by email and enforces email uniqueness across shards (its primary key acts as a reservation); the
+ * owning shard enforces username uniqueness. Multi-shard queries ({@link #findAll()},
+ * {@link #findByRole(String)}) run in parallel and are merged. {@link #addShard(DataSource)} rebalances
+ * online one virtual node at a time: it publishes the new ring, copies the range's rows and deletes them
+ * from the source; meanwhile, reads that miss on the new owner fall back to the previous one. If the copy
+ * fails, that fallback stays in place until {@link #resumeMigrations()} completes it.
+ * <p>
+ * Autor / Author: Fernando Cote
+ * Fecha / Date: 2025-11-24
+ */
+package main.sharding;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import main.entity.User;
+import main.exception.UserAlreadyExistsException;
+
+public class ShardedUserStore implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedUserStore.class);
+
+    /** Máximo de shards; el id lleva el shard de origen para ser único globalmente */
+    static final int MAX_SHARDS = 1024;
+    private static final int MIGRATION_BATCH = 500;
+
+    private static final String[] SHARD_SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS sharded_users (id BIGINT PRIMARY KEY, user_name VARCHAR(255) NOT NULL, "
+                    + "user_key VARCHAR(255) NOT NULL UNIQUE, ring_hash BIGINT NOT NULL, email VARCHAR(255) NOT NULL, "
+                    + "password VARCHAR(255) NOT NULL, roles VARCHAR(1024))",
+            "ALTER TABLE sharded_users ADD COLUMN IF NOT EXISTS last_login TIMESTAMP",
+            "ALTER TABLE sharded_users ADD COLUMN IF NOT EXISTS last_seen TIMESTAMP",
+            "CREATE INDEX IF NOT EXISTS idx_sharded_users_ring_hash ON sharded_users (ring_hash)",
+            "CREATE SEQUENCE IF NOT EXISTS sharded_user_seq" };
+    private static final String DIRECTORY_SCHEMA =
+            "CREATE TABLE IF NOT EXISTS email_directory (email VARCHAR(255) PRIMARY KEY, user_key VARCHAR(255) NOT NULL)";
+
+    private static final String COLUMNS = "id, user_name, user_key, ring_hash, email, password, roles, last_login, last_seen";
+    private static final String INSERT_USER =
+            "INSERT INTO sharded_users (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_BY_KEY = "SELECT " + COLUMNS + " FROM sharded_users WHERE user_key = ?";
+    private static final String SELECT_ALL = "SELECT " + COLUMNS + " FROM sharded_users";
+    private static final String SELECT_BY_ROLE =
+            "SELECT " + COLUMNS + " FROM sharded_users WHERE (',' || roles || ',') LIKE ?";
+    private static final String SELECT_RANGE =
+            "SELECT " + COLUMNS + " FROM sharded_users WHERE ring_hash > ? AND ring_hash <= ? ORDER BY id LIMIT ?";
+    private static final String SELECT_WRAPPED_RANGE =
+            "SELECT " + COLUMNS + " FROM sharded_users WHERE (ring_hash > ? OR ring_hash <= ?) ORDER BY id LIMIT ?";
+    private static final String DELETE_BY_IDS = "DELETE FROM sharded_users WHERE id IN (:ids)";
+    private static final String SELECT_EMAILS_BY_IDS = "SELECT id, email FROM sharded_users WHERE id IN (:ids)";
+    private static final String UPDATE_ACTIVITY = "UPDATE sharded_users SET last_login = COALESCE(?, last_login), "
+            + "last_seen = COALESCE(?, last_seen) WHERE id = ?";
+    private static final String COUNT_USERS = "SELECT COUNT(*) FROM sharded_users";
+    private static final String NEXT_ID = "SELECT NEXT VALUE FOR sharded_user_seq";
+    private static final String INSERT_EMAIL = "INSERT INTO email_directory (email, user_key) VALUES (?, ?)";
+    private static final String DELETE_EMAIL = "DELETE FROM email_directory WHERE email = ?";
+    private static final String SELECT_EMAIL_KEY = "SELECT user_key FROM email_directory WHERE email = ?";
+
+    private static final RowMapper<Object[]> ROW_MAPPER = (rs, rowNum) -> new Object[] {
+            rs.getLong("id"), rs.getString("user_name"), rs.getString("user_key"), rs.getLong("ring_hash"),
+            rs.getString("email"), rs.getString("password"), rs.getString("roles"),
+            rs.getTimestamp("last_login"), rs.getTimestamp("last_seen") };
+
+    private final List<JdbcTemplate> shards = new CopyOnWriteArrayList<>();
+    private final List<NamedParameterJdbcTemplate> namedShards = new CopyOnWriteArrayList<>();
+    private final JdbcTemplate directory;
+    private final int virtualNodes;
+    private final ExecutorService scatterExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "shard-scatter");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile ConsistentHashRing ring;
+    /** Migraciones en curso o fallidas pendientes de reintento / Ongoing or failed migrations awaiting retry */
+    private final List<Migration> migrations = new CopyOnWriteArrayList<>();
+
+    /**
+     * Los registros leen el anillo e insertan bajo el bloqueo de lectura; publicar un anillo nuevo toma
+     * el de escritura. Así ninguna inserción hecha con el anillo anterior llega después de que la copia
+     * del rango empiece, y la copia siempre la encuentra.
+     * Registrations read the ring and insert under the read lock; publishing a new ring takes the write
+     * lock. So no insert made with the previous ring lands after the range copy starts, and the copy
+     * always picks it up.
+     */
+    private final ReadWriteLock ringLock = new ReentrantReadWriteLock();
+
+    /**
+     * Cada lote de migración (leer, copiar, borrar del origen) y cada baja se ejecutan bajo este
+     * bloqueo, para que una baja no caiga entre la lectura y la copia de un lote y la fila reviva en el
+     * destino. Una baja espera como mucho un lote, no la migración completa.
+     * Every migration batch (read, copy, delete from source) and every deletion run under this lock, so
+     * a deletion cannot land between a batch's read and copy and resurrect the row on the target. A
+     * deletion waits for one batch at most, not for the whole migration.
+     */
+    private final Lock batchLock = new ReentrantLock();
+
+    /**
+     * Crea el almacenamiento sobre los datasources indicados, creando el esquema si no existe.
+     * <br>
+     * Creates the store over the given datasources, creating the schema if missing.
+     *
+     * @param dataSources un datasource por shard; el primero aloja el directorio de emails / one datasource per shard; the first one hosts the email directory
+     * @param virtualNodes nodos virtuales por shard / virtual nodes per shard
+     */
+    public ShardedUserStore(List<DataSource> dataSources, int virtualNodes) {
+        if (dataSources.isEmpty() || dataSources.size() > MAX_SHARDS) {
+            throw new IllegalArgumentException("Número de shards inválido: " + dataSources.size());
+        }
+        for (DataSource dataSource : dataSources) {
+            addShardTemplates(dataSource);
+        }
+        this.directory = shards.get(0);
+        this.directory.execute(DIRECTORY_SCHEMA);
+        this.virtualNodes = virtualNodes;
+        this.ring = ConsistentHashRing.of(dataSources.size(), virtualNodes);
+    }
+
+    /**
+     * Registra un usuario en su shard, verificando unicidad de nombre y email entre shards.
+     * <br>
+     * Registers a user on its shard, checking username and email uniqueness across shards.
+     *
+     * @param user usuario con contraseña ya cifrada / user with an already encrypted password
+     * @return usuario con su id asignado / user with its assigned id
+     */
+    public User register(User user) {
+        String key = normalize(user.getUserName());
+        String email = normalize(user.getEmail());
+        try {
+            directory.update(INSERT_EMAIL, email, key);
+        } catch (DuplicateKeyException e) {
+            throw new UserAlreadyExistsException("El usuario ya existe");
+        }
+        try {
+            if (findByKey(key).isPresent()) {
+                throw new UserAlreadyExistsException("El usuario ya existe");
+            }
+            long hash = ConsistentHashRing.hash(key);
+            ringLock.readLock().lock();
+            try {
+                int shardIndex = ring.shardFor(hash);
+                JdbcTemplate shard = shards.get(shardIndex);
+                Long sequence = shard.queryForObject(NEXT_ID, Long.class);
+                long id = sequence * MAX_SHARDS + shardIndex;
+                shard.update(INSERT_USER, id, user.getUserName(), key, hash, user.getEmail(), user.getPassword(),
+                        joinRoles(user.getRole()), null, null);
+                user.setId(id);
+                return user;
+            } finally {
+                ringLock.readLock().unlock();
+            }
+        } catch (RuntimeException e) {
+            // Liberar la reserva del email / Release the email reservation
+            directory.update(DELETE_EMAIL, email);
+            if (e instanceof DuplicateKeyException) {
+                throw new UserAlreadyExistsException("El usuario ya existe");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Busca un usuario por nombre en su shard.
+     * <br>
+     * Finds a user by username on its shard.
+     *
+     * @param userName nombre de usuario / username
+     * @return usuario encontrado (opcional) / found user (optional)
+     */
+    public Optional<User> findByUserName(String userName) {
+        return findByKey(normalize(userName));
+    }
+
+    /**
+     * Busca un usuario por email usando el directorio.
+     * <br>
+     * Finds a user by email through the directory.
+     *
+     * @param email correo electrónico / email
+     * @return usuario encontrado (opcional) / found user (optional)
+     */
+    public Optional<User> findByEmail(String email) {
+        List<String> keys = directory.queryForList(SELECT_EMAIL_KEY, String.class, normalize(email));
+        return keys.isEmpty() ? Optional.empty() : findByKey(keys.get(0));
+    }
+
+    public boolean existsByUserName(String userName) {
+        return findByUserName(userName).isPresent();
+    }
+
+    public boolean existsByEmail(String email) {
+        return !directory.queryForList(SELECT_EMAIL_KEY, String.class, normalize(email)).isEmpty();
+    }
+
+    /**
+     * Obtiene todos los usuarios consultando los shards en paralelo.
+     * <br>
+     * Gets all users by querying the shards in parallel.
+     *
+     * @return lista de usuarios / list of users
+     */
+    public List<User> findAll() {
+        return scatter(SELECT_ALL);
+    }
+
+    /**
+     * Busca usuarios por rol consultando los shards en paralelo.
+     * <br>
+     * Finds users by role by querying the shards in parallel.
+     *
+     * @param role rol de usuario / user role
+     * @return lista de usuarios / list of users
+     */
+    public List<User> findByRole(String role) {
+        return scatter(SELECT_BY_ROLE, "%," + role + ",%");
+    }
+
+    /**
+     * Agrega un shard y le mueve en línea los rangos de sus nodos virtuales, uno a uno.
+     * <br>
+     * Adds a shard and moves its virtual nodes' ranges to it online, one at a time.
+     *
+     * @param dataSource datasource del nuevo shard / new shard datasource
+     * @return usuarios movidos / moved users
+     */
+    public synchronized int addShard(DataSource dataSource) {
+        if (shards.size() >= MAX_SHARDS) {
+            throw new IllegalStateException("Se alcanzó el máximo de shards: " + MAX_SHARDS);
+        }
+        int moved = resumeMigrations();
+        int newShard = shards.size();
+        addShardTemplates(dataSource);
+
+        for (long token : ConsistentHashRing.tokensFor(newShard, virtualNodes)) {
+            moved += migrateToken(token, newShard);
+        }
+        logger.info("Shard " + newShard + " agregado; usuarios movidos: " + moved);
+        return moved;
+    }
+
+    /**
+     * Reintenta las migraciones que fallaron y agrega los nodos virtuales que quedaron sin mover cuando
+     * un {@link #addShard(DataSource)} se interrumpió. Mientras una migración esté pendiente, las
+     * lecturas siguen consultando el shard de origen.
+     * <br>
+     * Retries failed migrations and adds the virtual nodes left unmoved when an
+     * {@link #addShard(DataSource)} was interrupted. While a migration is pending, reads keep falling
+     * back to the source shard.
+     *
+     * @return usuarios movidos / moved users
+     */
+    public synchronized int resumeMigrations() {
+        int moved = 0;
+        for (Migration pending : migrations) {
+            moved += copyRange(pending);
+            migrations.remove(pending);
+        }
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (long token : ConsistentHashRing.tokensFor(shard, virtualNodes)) {
+                if (!ring.hasToken(token)) {
+                    moved += migrateToken(token, shard);
+                }
+            }
+        }
+        return moved;
+    }
+
+    public boolean hasPendingMigrations() {
+        return !migrations.isEmpty();
+    }
+
+    /**
+     * Elimina usuarios por id en todos los shards y libera sus emails, con una consulta y un borrado por
+     * shard y un borrado en lote en el directorio. El esquema particionado no tiene baja lógica, así que
+     * la baja es física. Se intercala con los lotes de una migración en curso para que no vuelva a copiar
+     * una fila ya eliminada.
+     * <br>
+     * Deletes users by id on every shard and releases their emails, with one query and one delete per
+     * shard and one batched delete on the directory. The sharded schema has no soft delete, so deletion
+     * is physical. It interleaves with an ongoing migration's batches so the migration does not copy
+     * back an already deleted row.
+     *
+     * @param ids ids de usuario / user ids
+     * @return usuarios eliminados / deleted users
+     */
+    public int deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Map<String, Object> params = Map.of("ids", ids);
+        Map<Long, String> emails = new HashMap<>();
+        batchLock.lock();
+        try {
+            for (NamedParameterJdbcTemplate shard : namedShards) {
+                List<Map<String, Object>> rows = shard.queryForList(SELECT_EMAILS_BY_IDS, params);
+                if (rows.isEmpty()) {
+                    continue;
+                }
+                for (Map<String, Object> row : rows) {
+                    emails.put(((Number) row.get("id")).longValue(), (String) row.get("email"));
+                }
+                shard.update(DELETE_BY_IDS, params);
+            }
+        } finally {
+            batchLock.unlock();
+        }
+        if (!emails.isEmpty()) {
+            List<Object[]> args = new ArrayList<>(emails.size());
+            for (String email : emails.values()) {
+                args.add(new Object[] { normalize(email) });
+            }
+            directory.batchUpdate(DELETE_EMAIL, args);
+        }
+        return emails.size();
+    }
+
+    /**
+     * Aplica en lote la última actividad de usuarios. Como el id no indica el shard actual tras un
+     * rebalanceo, el lote se envía a todos los shards y solo actualiza donde vive cada fila.
+     * <br>
+     * Applies a batch of user last activity. Since the id does not tell the current shard after a
+     * rebalance, the batch is sent to every shard and only updates where each row lives.
+     *
+     * @param args filas (último login, última actividad, id) / rows (last login, last seen, id)
+     */
+    public void updateActivity(List<Object[]> args) {
+        for (JdbcTemplate shard : shards) {
+            shard.batchUpdate(UPDATE_ACTIVITY, args);
+        }
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    /**
+     * Cuenta los usuarios almacenados en un shard.
+     * <br>
+     * Counts the users stored on a shard.
+     *
+     * @param shard índice del shard / shard index
+     * @return número de usuarios / number of users
+     */
+    public long countUsers(int shard) {
+        Long count = shards.get(shard).queryForObject(COUNT_USERS, Long.class);
+        return count != null ? count : 0;
+    }
+
+    @Override
+    public void close() {
+        scatterExecutor.shutdownNow();
+    }
+
+    private int migrateToken(long token, int newShard) {
+        ConsistentHashRing current = ring;
+        int from = current.shardFor(token);
+        long start = current.predecessor(token);
+        Migration migration = new Migration(start, token, from, newShard);
+        // Espera a los registros que leyeron el anillo anterior: sus filas quedan antes de la copia
+        ringLock.writeLock().lock();
+        try {
+            if (from == newShard) {
+                ring = current.withToken(token, newShard);
+                return 0;
+            }
+            // Primero el estado de migración, luego el anillo: las lecturas que fallen en el dueño nuevo
+            // encontrarán la fila en el anterior hasta que se copie
+            migrations.add(migration);
+            ring = current.withToken(token, newShard);
+        } finally {
+            ringLock.writeLock().unlock();
+        }
+
+        // Si la copia falla la migración queda registrada: el respaldo sigue activo hasta el reintento
+        int moved = copyRange(migration);
+        migrations.remove(migration);
+        return moved;
+    }
+
+    private int copyRange(Migration migration) {
+        String rangeSql = migration.start < migration.end ? SELECT_RANGE : SELECT_WRAPPED_RANGE;
+        int moved = 0;
+        for (;;) {
+            int batch = copyBatch(migration, rangeSql);
+            if (batch == 0) {
+                return moved;
+            }
+            moved += batch;
+        }
+    }
+
+    private int copyBatch(Migration migration, String rangeSql) {
+        batchLock.lock();
+        try {
+            List<Object[]> rows = shards.get(migration.from).query(rangeSql, ROW_MAPPER, migration.start,
+                    migration.end, MIGRATION_BATCH);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                ids.add((Long) row[0]);
+            }
+            Map<String, Object> params = Map.of("ids", ids);
+            // Un lote fallido pudo dejar copias en el destino: se reemplazan / A failed batch may have left copies on the target: replace them
+            namedShards.get(migration.to).update(DELETE_BY_IDS, params);
+            shards.get(migration.to).batchUpdate(INSERT_USER, rows);
+            namedShards.get(migration.from).update(DELETE_BY_IDS, params);
+            return rows.size();
+        } finally {
+            batchLock.unlock();
+        }
+    }
+
+    private Optional<User> findByKey(String key) {
+        long hash = ConsistentHashRing.hash(key);
+        int owner = ring.shardFor(hash);
+        // Orígenes a consultar, tomados antes de la primera consulta para no perder una migración que
+        // termine mientras tanto / Sources to query, taken before the first query so a migration finishing
+        // meanwhile is not missed
+        List<Integer> sources = new ArrayList<>(1);
+        for (Migration migration : migrations) {
+            if (migration.from != owner && ConsistentHashRing.inRange(hash, migration.start, migration.end)) {
+                sources.add(migration.from);
+            }
+        }
+        Optional<User> user = queryKey(owner, key);
+        if (user.isPresent()) {
+            return user;
+        }
+        for (int source : sources) {
+            user = queryKey(source, key);
+            if (user.isPresent()) {
+                return user;
+            }
+        }
+        // El anillo pudo cambiar durante la consulta, o la fila se movió entre las dos consultas: se copia
+        // al destino antes de borrarla del origen, así que una nueva consulta al dueño la encuentra
+        // The ring may have changed during the lookup, or the row moved between both queries: it is
+        // copied to the target before being deleted from the source, so querying the owner again finds it
+        int latestOwner = ring.shardFor(hash);
+        return latestOwner != owner || !sources.isEmpty() ? queryKey(latestOwner, key) : Optional.empty();
+    }
+
+    private Optional<User> queryKey(int shard, String key) {
+        List<Object[]> rows = shards.get(shard).query(SELECT_BY_KEY, ROW_MAPPER, key);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(toUser(rows.get(0)));
+    }
+
+    private List<User> scatter(String sql, Object... args) {
+        List<CompletableFuture<List<Object[]>>> futures = new ArrayList<>(shards.size());
+        for (JdbcTemplate shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> shard.query(sql, ROW_MAPPER, args), scatterExecutor));
+        }
+        // Durante una migración una fila puede estar en dos shards: se deduplica por id
+        Map<Long, User> users = new LinkedHashMap<>();
+        for (CompletableFuture<List<Object[]>> future : futures) {
+            try {
+                for (Object[] row : future.join()) {
+                    users.putIfAbsent((Long) row[0], toUser(row));
+                }
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return new ArrayList<>(users.values());
+    }
+
+    private void addShardTemplates(DataSource dataSource) {
+        JdbcTemplate shard = new JdbcTemplate(dataSource);
+        for (String ddl : SHARD_SCHEMA) {
+            shard.execute(ddl);
+        }
+        namedShards.add(new NamedParameterJdbcTemplate(shard));
+        shards.add(shard);
+    }
+
+    private static User toUser(Object[] row) {
+        User user = new User();
+        user.setId((Long) row[0]);
+        user.setUserName((String) row[1]);
+        user.setEmail((String) row[4]);
+        user.setPassword((String) row[5]);
+        String roles = (String) row[6];
+        user.setRole(roles == null || roles.isEmpty() ? new ArrayList<>() : new ArrayList<>(Arrays.asList(roles.split(","))));
+        user.setLastLogin(row[7] != null ? ((Timestamp) row[7]).toInstant() : null);
+        user.setLastSeen(row[8] != null ? ((Timestamp) row[8]).toInstant() : null);
+        return user;
+    }
+
+    private static String joinRoles(List<String> roles) {
+        return roles == null ? "" : String.join(",", roles);
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Migration {
+        private final long start;
+        private final long end;
+        private final int from;
+        private final int to;
+
+        private Migration(long start, long end, int from, int to) {
+            this.start = start;
+            this.end = end;
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.junit.jupiter.api.Test;
+
+import main.audit.LoginAuditEvent;
+import main.audit.LoginAuditRingBuffer;
+
+public class LoginAuditRingBufferTest {
+
+    @Test
+    public void testOfferFailsFastWhenFull() {
+        LoginAuditRingBuffer buffer = new LoginAuditRingBuffer(4);
+        for (int i = 0; i < buffer.capacity(); i++) {
+            assertTrue(buffer.offer(event("user" + i)));
+        }
+
+        // Buffer lleno: se descarta sin bloquear
+        assertFalse(buffer.offer(event("overflow")));
+
+        List<LoginAuditEvent> drained = new ArrayList<>();
+        assertEquals(4, buffer.drainTo(drained, 10));
+        assertEquals("user0", drained.get(0).getUserName());
+        assertTrue(buffer.offer(event("again")));
+    }
+
+    @Test
+    public void testConcurrentProducersNeverLoseAcceptedEvents() throws Exception {
+        int producers = 4;
+        int perProducer = 200_000;
+        LoginAuditRingBuffer buffer = new LoginAuditRingBuffer(64);
+        AtomicLong accepted = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; p++) {
+            Thread producer = new Thread(() -> {
+                LoginAuditEvent event = event("load");
+                for (int i = 0; i < perProducer; i++) {
+                    if (buffer.offer(event)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+            producer.start();
+        }
+
+        // Consumidor único y lento (lotes pequeños con pausa) para forzar desbordes
+        long consumed = 0;
+        List<LoginAuditEvent> batch = new ArrayList<>(8);
+        while (done.getCount() > 0 || buffer.size() > 0) {
+            batch.clear();
+            consumed += buffer.drainTo(batch, 8);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+        }
+        consumed += buffer.drainTo(batch, Integer.MAX_VALUE);
+
+        long offered = (long) producers * perProducer;
+        assertEquals(accepted.get(), consumed, "todo evento aceptado se consume exactamente una vez");
+        assertTrue(offered - accepted.get() > 0, "el consumidor lento debe provocar descartes");
+        assertTrue(buffer.size() <= buffer.capacity());
+    }
+
+    private static LoginAuditEvent event(String userName) {
+        return new LoginAuditEvent(userName, Instant.now(), "127.0.0.1", true);
+    }
+}
@@ -0,0 +1,122 @@
+package audit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import main.audit.LoginAuditEvent;
+import main.audit.LoginAuditWriter;
+
+public class LoginAuditWriterTest {
+
+    private static final int THREADS = 8;
+    private static final int WARMUP = 20_000;
+    private static final int PUBLISHES = 50_000;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch databaseStalled = new CountDownLatch(1);
+    private JdbcTemplate jdbcTemplate;
+    private LoginAuditWriter writer;
+
+    @BeforeEach
+    public void setUp() {
+        // La base de datos no responde hasta que el test la libera
+        jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        Mockito.when(jdbcTemplate.batchUpdate(Mockito.anyString(), Mockito.<Object[]>anyList())).thenAnswer(invocation -> {
+            databaseStalled.await();
+            return new int[0];
+        });
+
+        writer = new LoginAuditWriter();
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(writer, "bufferCapacity", 1024);
+        ReflectionTestUtils.setField(writer, "batchSize", 64);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 10L);
+        writer.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        databaseStalled.countDown();
+        writer.shutdown();
+    }
+
+    @Test
+    public void testPublishLatencyStaysBoundedWhileDatabaseIsStalled(TestReporter reporter) throws Exception {
+        long[][] latencies = new long[THREADS][PUBLISHES];
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            long[] own = latencies[t];
+            Thread producer = new Thread(() -> {
+                LoginAuditEvent event = new LoginAuditEvent("load", Instant.now(), "127.0.0.1", true);
+                try {
+                    start.await();
+                    for (int i = 0; i < WARMUP; i++) {
+                        writer.publish(event);
+                    }
+                    for (int i = 0; i < PUBLISHES; i++) {
+                        long begin = System.nanoTime();
+                        writer.publish(event);
+                        own[i] = System.nanoTime() - begin;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }, "login-" + t);
+            producer.start();
+        }
+        start.countDown();
+
+        // Si publish esperara a la base de datos, los productores no terminarían nunca: sigue bloqueada
+        assertTrue(done.await(30, TimeUnit.SECONDS), "publish quedó bloqueado por la base de datos");
+        assertEquals(1, databaseStalled.getCount());
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        long p50 = all[all.length / 2];
+        long p99 = all[(int) (all.length * 0.99)];
+        long max = all[all.length - 1];
+        reporter.publishEntry(Map.of(
+                "publish.p50.ns", String.valueOf(p50),
+                "publish.p99.ns", String.valueOf(p99),
+                "publish.max.ns", String.valueOf(max),
+                "audit.login.dropped", String.valueOf(meterRegistry.counter("audit.login.dropped").count())));
+
+        assertTrue(p99 < TimeUnit.MILLISECONDS.toNanos(1), "p99 de publish: " + p99 + " ns");
+        // Margen para pausas del GC o del planificador, muy por debajo de la base de datos bloqueada
+        assertTrue(max < TimeUnit.MILLISECONDS.toNanos(250), "máximo de publish: " + max + " ns");
+        // Con la base bloqueada el buffer se llena y los eventos se descartan en lugar de esperar
+        assertTrue(meterRegistry.counter("audit.login.dropped").count() > 0);
+    }
+
+    @Test
+    public void testWriterCatchesUpOnceDatabaseRecovers() {
+        for (int i = 0; i < 2048; i++) {
+            writer.publish(new LoginAuditEvent("user" + i, Instant.now(), "127.0.0.1", i % 2 == 0));
+        }
+        databaseStalled.countDown();
+        writer.shutdown();
+
+        double written = meterRegistry.counter("audit.login.written").count();
+        double dropped = meterRegistry.counter("audit.login.dropped").count();
+        assertEquals(2048, written + dropped);
+        assertTrue(written >= 1024, "se escriben al menos los eventos que cabían en el buffer");
+    }
+}
@@ -0,0 +1,94 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import main.controller.ApiDocsController;
+
+public class ApiDocsControllerTest {
+
+    private ApiDocsController controller;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        controller = new ApiDocsController();
+        controller.init();
+    }
+
+    @Test
+    public void testGzipOnlyWhenAcceptedWithPositiveQuality() {
+        assertGzip(true, "gzip");
+        assertGzip(true, "deflate, gzip;q=0.5");
+        assertGzip(true, "br, *");
+        assertGzip(false, null);
+        assertGzip(false, "gzip;q=0");
+        assertGzip(false, "gzip; q=0.0, deflate");
+        assertGzip(false, "*;q=0");
+        // La entrada explícita prevalece sobre el comodín
+        assertGzip(false, "*, gzip;q=0");
+        assertGzip(true, "*;q=0, gzip");
+    }
+
+    @Test
+    public void testCompressedBodyMatchesPlainBody() throws IOException {
+        byte[] plain = controller.getApiDocs(request(null, null), null).getBody();
+        byte[] compressed = controller.getApiDocs(request("gzip", null), "gzip").getBody();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(plain, in.readAllBytes());
+        }
+        // La URL del servidor del build no se publica
+        assertFalse(new ObjectMapper().readTree(plain).has("servers"));
+    }
+
+    @Test
+    public void testReturnsNotModifiedForMatchingETag() {
+        ResponseEntity<byte[]> first = controller.getApiDocs(request(null, null), null);
+        String etag = first.getHeaders().getETag();
+
+        ResponseEntity<byte[]> second = controller.getApiDocs(request(null, etag), null);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertNull(second.getBody());
+        assertEquals(etag, second.getHeaders().getETag());
+        // El ETag comprimido es distinto: no sirve para la representación sin comprimir
+        String gzipEtag = controller.getApiDocs(request("gzip", null), "gzip").getHeaders().getETag();
+        assertEquals(HttpStatus.OK, controller.getApiDocs(request(null, gzipEtag), null).getStatusCode());
+    }
+
+    private void assertGzip(boolean expected, String acceptEncoding) {
+        ResponseEntity<byte[]> response = controller.getApiDocs(request(acceptEncoding, null), acceptEncoding);
+        String contentEncoding = response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        assertEquals(expected, "gzip".equals(contentEncoding), String.valueOf(acceptEncoding));
+        assertTrue(response.getHeaders().getVary().contains(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    private static ServletWebRequest request(String acceptEncoding, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v3/api-docs");
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
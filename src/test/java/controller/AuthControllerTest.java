@@ -0,0 +1,47 @@
+package controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import main.controller.AuthController;
+import main.exception.GlobalExceptionHandler;
+import main.repository.UserRepository;
+import main.security.BreachedPasswordFilter;
+import main.service.UserService;
+
+public class AuthControllerTest {
+
+    @Test
+    public void testBreachedPasswordIsRejectedWith400() throws Exception {
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        BreachedPasswordFilter breachedPasswordFilter = Mockito.mock(BreachedPasswordFilter.class);
+        Mockito.when(breachedPasswordFilter.isBreached("password123")).thenReturn(true);
+
+        UserService userService = new UserService();
+        userService.userRepository = userRepository;
+        userService.passwordEncoder = new BCryptPasswordEncoder();
+        userService.breachedPasswordFilter = breachedPasswordFilter;
+        AuthController controller = new AuthController();
+        ReflectionTestUtils.setField(controller, "userService", userService);
+
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userName\":\"testuser\",\"email\":\"test@example.com\",\"password\":\"password123\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("La contraseña aparece en listas de contraseñas filtradas"));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+}
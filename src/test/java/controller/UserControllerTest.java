@@ -0,0 +1,139 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import main.controller.UserController;
+import main.dto.LoginAuditDTO;
+import main.dto.UserAuthInfo;
+import main.dto.UserDTO;
+import main.entity.LoginAudit;
+import main.entity.User;
+import main.repository.UserRepository.UserVersion;
+import main.service.LoginAuditService;
+import main.service.UserService;
+
+public class UserControllerTest {
+
+    private static final String PROFILE_CACHE = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private UserService userService;
+    private UserController controller;
+
+    @BeforeEach
+    public void setUp() {
+        userService = Mockito.mock(UserService.class);
+        controller = new UserController();
+        ReflectionTestUtils.setField(controller, "userService", userService);
+
+        User user = new User();
+        user.setId(5L);
+        user.setUserName("testuser");
+        user.setEmail("test@example.com");
+        user.setRole(List.of("USER"));
+        user.setVersion(3L);
+        Mockito.when(userService.findByUserName("testuser")).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    public void testProfileReturnsETagAndCacheHeaders() {
+        ResponseEntity<UserDTO> response = controller.getProfile(authentication(), request(null));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("testuser", response.getBody().getUserName());
+        assertEquals("\"5-3\"", response.getHeaders().getETag());
+        assertEquals(PROFILE_CACHE, response.getHeaders().getCacheControl());
+        assertEquals(List.of(HttpHeaders.AUTHORIZATION), response.getHeaders().getVary());
+    }
+
+    @Test
+    public void testMatchingIfNoneMatchReturns304WithoutQueries() {
+        ResponseEntity<UserDTO> response = controller.getProfile(authentication(), request("\"5-3\""));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        assertEquals("\"5-3\"", response.getHeaders().getETag());
+        assertEquals(PROFILE_CACHE, response.getHeaders().getCacheControl());
+        assertEquals(List.of(HttpHeaders.AUTHORIZATION), response.getHeaders().getVary());
+        // El filtro JWT ya cargó id y versión: ni entidad ni consulta de versión
+        Mockito.verify(userService, Mockito.never()).findByUserName(Mockito.anyString());
+        Mockito.verify(userService, Mockito.never()).findVersionByUserName(Mockito.anyString());
+    }
+
+    @Test
+    public void testStaleIfNoneMatchReturnsFullProfile() {
+        ResponseEntity<UserDTO> response = controller.getProfile(authentication(), request("\"5-2\""));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"5-3\"", response.getHeaders().getETag());
+    }
+
+    @Test
+    public void testFallsBackToVersionQueryWithoutAuthDetails() {
+        UserVersion version = Mockito.mock(UserVersion.class);
+        Mockito.when(version.getId()).thenReturn(5L);
+        Mockito.when(version.getVersion()).thenReturn(3L);
+        Mockito.when(userService.findVersionByUserName("testuser")).thenReturn(Optional.of(version));
+
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken("testuser", null, List.of());
+        ResponseEntity<UserDTO> response = controller.getProfile(authentication, request("\"5-3\""));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        Mockito.verify(userService, Mockito.never()).findByUserName(Mockito.anyString());
+    }
+
+    @Test
+    public void testLoginAuditIsExposedAsDTOs() {
+        LoginAuditService loginAuditService = Mockito.mock(LoginAuditService.class);
+        ReflectionTestUtils.setField(controller, "loginAuditService", loginAuditService);
+        LoginAudit audit = new LoginAudit();
+        audit.setId(42L);
+        audit.setUserName("testuser");
+        audit.setOccurredAt(Instant.parse("2025-11-24T10:00:00Z"));
+        audit.setIp("10.0.0.1");
+        audit.setSuccess(true);
+        Mockito.when(loginAuditService.findRecent("testuser", 20)).thenReturn(List.of(audit));
+
+        List<LoginAuditDTO> events = controller.getLoginAudit(authentication(), 20).getBody();
+
+        assertEquals(1, events.size());
+        assertEquals("testuser", events.get(0).getUserName());
+        assertEquals(Instant.parse("2025-11-24T10:00:00Z"), events.get(0).getOccurredAt());
+        assertEquals("10.0.0.1", events.get(0).getIp());
+        assertTrue(events.get(0).isSuccess());
+    }
+
+    private static UsernamePasswordAuthenticationToken authentication() {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken("testuser", null, List.of());
+        authentication.setDetails(new UserAuthInfo(5L, 3L, List.of("USER")));
+        return authentication;
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/profile");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,106 @@
+package main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Verifica que el documento OpenAPI versionado ({@code src/main/resources/openapi/openapi.json}, que el
+ * build reemplaza en el artefacto por la salida de springdoc y que el perfil prod usa si se arranca sin
+ * empaquetar) coincide con el contrato que springdoc genera a partir de los controladores:
+ * rutas, operaciones, parámetros, códigos de respuesta y propiedades de los esquemas. No escribe archivos,
+ * salvo que se ejecute explícitamente con {@code -Dopenapi.update=true} para regenerar la copia versionada.
+ * <br>
+ * Checks that the committed OpenAPI document ({@code src/main/resources/openapi/openapi.json}, which the
+ * build replaces in the artifact with springdoc's output and the prod profile uses when run unpackaged)
+ * matches the contract springdoc generates from the controllers: paths, operations,
+ * parameters, response codes and schema properties. It writes no files unless explicitly run with
+ * {@code -Dopenapi.update=true} to regenerate the committed copy.
+ */
+@SpringBootTest
+class OpenApiDocumentTest {
+
+    private static final Path SOURCE_DOCUMENT = Path.of("src/main/resources/openapi/openapi.json");
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Test
+    void openApiDocumentIsUpToDate() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        String body = mockMvc.perform(get("/v3/api-docs"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        JsonNode generated = mapper.readTree(body);
+        // La URL del servidor depende del entorno / The server URL depends on the environment
+        ((ObjectNode) generated).remove("servers");
+
+        if (Boolean.getBoolean("openapi.update")) {
+            Files.write(SOURCE_DOCUMENT, mapper.writeValueAsBytes(generated));
+            return;
+        }
+
+        ClassPathResource resource = new ClassPathResource("openapi/openapi.json");
+        assertTrue(resource.exists(), "Falta openapi/openapi.json en el classpath");
+        JsonNode committed;
+        try (InputStream in = resource.getInputStream()) {
+            committed = mapper.readTree(in);
+        }
+        assertEquals(contract(generated), contract(committed),
+                "openapi.json desactualizado: ejecute mvn test -Dtest=OpenApiDocumentTest -Dopenapi.update=true");
+    }
+
+    /**
+     * Resume el documento en lo que consumen los clientes, ignorando textos y detalles de serialización.
+     * Summarizes the document into what clients consume, ignoring texts and serialization details.
+     */
+    private static Map<String, Object> contract(JsonNode document) {
+        Map<String, Object> contract = new TreeMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> paths = document.path("paths").fields(); paths.hasNext();) {
+            Map.Entry<String, JsonNode> path = paths.next();
+            for (Iterator<Map.Entry<String, JsonNode>> operations = path.getValue().fields(); operations.hasNext();) {
+                Map.Entry<String, JsonNode> operation = operations.next();
+                TreeSet<String> shape = new TreeSet<>();
+                operation.getValue().path("parameters").forEach(parameter -> shape.add("param:"
+                        + parameter.path("name").asText() + ":" + parameter.path("required").asBoolean()));
+                if (operation.getValue().has("requestBody")) {
+                    shape.add("body");
+                }
+                operation.getValue().path("responses").fieldNames().forEachRemaining(code -> shape.add("response:" + code));
+                contract.put(operation.getKey().toUpperCase() + " " + path.getKey(), shape);
+            }
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> schemas = document.path("components").path("schemas").fields(); schemas.hasNext();) {
+            Map.Entry<String, JsonNode> schema = schemas.next();
+            TreeSet<String> properties = new TreeSet<>();
+            schema.getValue().path("properties").fieldNames().forEachRemaining(properties::add);
+            contract.put("schema " + schema.getKey(), properties);
+        }
+        return contract;
+    }
+}
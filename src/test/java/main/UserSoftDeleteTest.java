@@ -0,0 +1,105 @@
+package main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import main.dto.PurgeProgress;
+import main.dto.UserDTO;
+import main.entity.User;
+import main.repository.UserRepository;
+import main.service.UserPurgeService;
+import main.service.UserService;
+
+/**
+ * Verifica que la baja lógica oculta a los usuarios y que la purga los elimina por lotes.
+ * <br>
+ * Checks that soft delete hides users and that the purge removes them in batches.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:softdelete",
+        "user.purge.batch-size=2",
+        "user.purge.pause-ms=0" })
+class UserSoftDeleteTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserPurgeService userPurgeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void softDeletedUsersAreHiddenAndPurgedInBatches() throws Exception {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            users.add(userService.registerUser(user("soft" + i + "-" + suffix)));
+        }
+        List<Long> deleted = List.of(users.get(0).getId(), users.get(1).getId(), users.get(2).getId());
+        User survivor = users.get(3);
+
+        assertEquals(3, userService.softDeleteUsers(deleted));
+
+        for (int i = 0; i < 3; i++) {
+            User user = users.get(i);
+            assertTrue(userRepository.findByUserName(user.getUserName()).isEmpty());
+            assertFalse(userRepository.existsByUserName(user.getUserName()));
+            assertFalse(userRepository.existsByEmail(user.getEmail()));
+        }
+        assertTrue(userRepository.existsByUserName(survivor.getUserName()));
+        // Las filas siguen ahí hasta la purga / Rows stay until the purge
+        assertEquals(3, count("SELECT COUNT(*) FROM \"users\" WHERE id IN (:ids)", deleted));
+
+        userPurgeService.startPurge(Instant.now().plusSeconds(1));
+        PurgeProgress progress = awaitPurge();
+
+        assertEquals(PurgeProgress.Status.COMPLETED, progress.getStatus());
+        assertEquals(progress.getTotal(), progress.getPurged());
+        assertTrue(progress.getPurged() >= 3);
+        // Lotes de 2: al menos dos lotes para tres usuarios / Batches of 2: at least two batches for three users
+        assertTrue(progress.getBatches() >= 2);
+        assertEquals(0, count("SELECT COUNT(*) FROM \"users\" WHERE id IN (:ids)", deleted));
+        assertEquals(0, count("SELECT COUNT(*) FROM user_role WHERE user_id IN (:ids)", deleted));
+        assertEquals(1, count("SELECT COUNT(*) FROM user_role WHERE user_id IN (:ids)", List.of(survivor.getId())));
+    }
+
+    private PurgeProgress awaitPurge() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        PurgeProgress progress = userPurgeService.getProgress();
+        while (progress.getStatus() == PurgeProgress.Status.RUNNING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            progress = userPurgeService.getProgress();
+        }
+        return progress;
+    }
+
+    private long count(String sql, List<Long> ids) {
+        return new NamedParameterJdbcTemplate(jdbcTemplate).queryForObject(sql, Map.of("ids", ids), Long.class);
+    }
+
+    private static UserDTO user(String userName) {
+        UserDTO dto = new UserDTO();
+        dto.setUserName(userName);
+        dto.setEmail(userName + "@example.com");
+        dto.setPassword("Clave-" + userName);
+        return dto;
+    }
+}
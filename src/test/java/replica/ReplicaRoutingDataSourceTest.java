@@ -0,0 +1,143 @@
+package replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import main.replica.ReadRoutingContext;
+import main.replica.ReadYourWritesTracker;
+import main.replica.ReplicaRoutingDataSource;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private final String suffix = UUID.randomUUID().toString();
+    private final DataSource primary = h2("primary");
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(60_000);
+
+    @AfterEach
+    public void clearTransactionState() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    public void testRoutesReadOnlyToReplicaAndWritesToPrimary() {
+        ReplicaRoutingDataSource routing = routing(migratedReplica());
+
+        assertTrue(url(routing).contains("primary"));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertTrue(url(routing).contains("replica"));
+        assertEquals(1.0, meterRegistry.get("datasource.routing").tag("target", "replica").counter().count());
+    }
+
+    @Test
+    public void testReadYourWritesKeepsUserOnPrimary() {
+        ReplicaRoutingDataSource routing = routing(migratedReplica());
+        tracker.recordWrite("bob");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertTrue(ReadRoutingContext.forUser("bob", () -> url(routing)).contains("primary"));
+        assertTrue(ReadRoutingContext.forUser("alice", () -> url(routing)).contains("replica"));
+    }
+
+    @Test
+    public void testUnreachableReplicaNeverReceivesReads() {
+        // Nada escucha en el puerto 1: la conexión falla de inmediato
+        DataSource broken = new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/missing", "sa", "");
+        ReplicaRoutingDataSource routing = routing(broken);
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertTrue(url(routing).contains("primary"));
+        assertEquals(0.0, meterRegistry.get("datasource.replica.healthy").gauge().value());
+    }
+
+    @Test
+    public void testReplicaWithoutSchemaNeverReceivesReads() {
+        // Acepta conexiones pero no tiene la tabla de usuarios; no se espera a failure-threshold
+        ReplicaRoutingDataSource routing = routing(h2("empty"));
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertTrue(url(routing).contains("primary"));
+        assertEquals(0.0, meterRegistry.get("datasource.replica.healthy").gauge().value());
+    }
+
+    @Test
+    public void testHealthyReplicaIsEjectedAfterConsecutiveFailures() throws SQLException {
+        DataSource replica = migratedReplica();
+        ReplicaRoutingDataSource routing = routing(replica);
+        routing.setFailureThreshold(2);
+        execute(replica, "DROP TABLE \"users\"");
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        routing.checkReplicas();
+        assertTrue(url(routing).contains("replica"));
+
+        routing.checkReplicas();
+        assertTrue(url(routing).contains("primary"));
+        assertEquals(0.0, meterRegistry.get("datasource.replica.healthy").gauge().value());
+    }
+
+    @Test
+    public void testReplicaIsAdmittedOnceSchemaExists() throws SQLException {
+        DataSource replica = h2("replica");
+        ReplicaRoutingDataSource routing = routing(replica);
+        assertEquals(0.0, meterRegistry.get("datasource.replica.healthy").gauge().value());
+
+        execute(replica, "CREATE TABLE \"users\" (id BIGINT PRIMARY KEY)");
+        routing.checkReplicas();
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertTrue(url(routing).contains("replica"));
+        assertEquals(1.0, meterRegistry.get("datasource.replica.healthy").gauge().value());
+    }
+
+    private ReplicaRoutingDataSource routing(DataSource replica) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica), tracker, meterRegistry);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static String url(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private DataSource migratedReplica() {
+        DataSource replica = h2("replica");
+        try {
+            execute(replica, "CREATE TABLE \"users\" (id BIGINT PRIMARY KEY)");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return replica;
+    }
+
+    private static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private DataSource h2(String name) {
+        return new DriverManagerDataSource("jdbc:h2:mem:" + name + "-" + suffix + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+}
@@ -0,0 +1,135 @@
+package security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import main.security.BreachedPasswordFilter;
+import main.security.BreachedPasswordFilterCompiler;
+import main.security.MappedBloomFilter;
+
+public class BreachedPasswordFilterTest {
+
+    private static final int SMALL_FILTER_BYTES = 32 + 128;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compiledFilterContainsEveryListedPassword() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String hex = sha1Hex("filtrada-" + i + "-ñ");
+            lines.add(i % 2 == 0 ? hex : hex + ":" + (i + 1));
+        }
+        lines.add("no-es-un-hash");
+        Path input = Files.write(dir.resolve("hashes.txt"), lines, StandardCharsets.US_ASCII);
+
+        MappedBloomFilter filter = BreachedPasswordFilterCompiler.compile(input, dir.resolve("breached.bloom"), 0.01);
+        assertEquals(1000, filter.getNumEntries());
+
+        MappedBloomFilter reopened = MappedBloomFilter.open(dir.resolve("breached.bloom"));
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(reopened.mightContainPassword("filtrada-" + i + "-ñ"));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (reopened.mightContainPassword("segura-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "falsos positivos: " + falsePositives);
+        assertTrue(reopened.expectedFalsePositiveRate() <= 0.011);
+    }
+
+    @Test
+    void rejectsFilesWithoutHeader() throws IOException {
+        Path bogus = Files.write(dir.resolve("bogus.bloom"), new byte[64]);
+        assertThrows(IOException.class, () -> MappedBloomFilter.open(bogus));
+    }
+
+    @Test
+    void rejectsHeadersThatWouldBreakLookups() throws IOException {
+        Path zeroBits = writeHeader("zero-bits.bloom", 0, 3);
+        Path hugeHashes = writeHeader("huge-hashes.bloom", 1024, Integer.MAX_VALUE);
+        Path negativeBits = writeHeader("negative-bits.bloom", -8, 3);
+
+        assertThrows(IOException.class, () -> MappedBloomFilter.open(zeroBits));
+        assertThrows(IOException.class, () -> MappedBloomFilter.open(hugeHashes));
+        assertThrows(IOException.class, () -> MappedBloomFilter.open(negativeBits));
+    }
+
+    @Test
+    void reloadSwapsInNewFilterAndKeepsPreviousOnCorruptFile() throws Exception {
+        Path output = dir.resolve("breached.bloom");
+        compile(output, "alpha-1", "alpha-2");
+        BreachedPasswordFilter breachedPasswordFilter = new BreachedPasswordFilter();
+        ReflectionTestUtils.setField(breachedPasswordFilter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(breachedPasswordFilter, "path", output.toString());
+        breachedPasswordFilter.init();
+
+        assertTrue(breachedPasswordFilter.isBreached("alpha-1"));
+        assertFalse(breachedPasswordFilter.isBreached("beta-1"));
+
+        // Mismo tamaño de archivo: se distingue por la fecha de modificación
+        compile(output, "beta-1", "beta-2");
+        touch(output);
+        breachedPasswordFilter.reloadIfChanged();
+
+        assertTrue(breachedPasswordFilter.isBreached("beta-1"));
+        assertFalse(breachedPasswordFilter.isBreached("alpha-1"));
+
+        // Archivo corrupto: se rechaza y se mantiene el filtro anterior
+        Path corrupt = writeHeader("corrupt.bloom", 0, 3);
+        Files.move(corrupt, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        touch(output);
+        breachedPasswordFilter.reloadIfChanged();
+
+        assertTrue(breachedPasswordFilter.isBreached("beta-1"));
+        assertFalse(breachedPasswordFilter.isBreached("alpha-1"));
+    }
+
+    private void compile(Path output, String... passwords) throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (String password : passwords) {
+            lines.add(sha1Hex(password));
+        }
+        Path input = Files.write(dir.resolve("hashes.txt"), lines, StandardCharsets.US_ASCII);
+        BreachedPasswordFilterCompiler.compile(input, output, 0.001);
+    }
+
+    private static void touch(Path file) throws IOException {
+        FileTime modified = Files.getLastModifiedTime(file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified.toMillis() + 1000));
+    }
+
+    private Path writeHeader(String name, long bits, int hashes) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SMALL_FILTER_BYTES);
+        header.putInt(0x42504631).putInt(1).putLong(bits).putInt(hashes).putLong(1);
+        return Files.write(dir.resolve(name), header.array());
+    }
+
+    private static String sha1Hex(String password) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().withUpperCase().formatHex(digest);
+    }
+}
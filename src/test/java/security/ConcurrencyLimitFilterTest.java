@@ -0,0 +1,117 @@
+package security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import main.security.ConcurrencyLimitFilter;
+
+public class ConcurrencyLimitFilterTest {
+
+    private static final String EXPENSIVE = "/api/auth/login";
+    private static final String CHEAP = "/api/user/profile";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        // Límite fijo de 10 (min = max) y la mitad para rutas costosas
+        filter = new ConcurrencyLimitFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(filter, "initialLimit", 10);
+        ReflectionTestUtils.setField(filter, "minLimit", 10);
+        ReflectionTestUtils.setField(filter, "maxLimit", 10);
+        ReflectionTestUtils.setField(filter, "expensiveShare", 0.5);
+        ReflectionTestUtils.setField(filter, "expensivePaths", new String[] { EXPENSIVE, "/api/auth/register" });
+        ReflectionTestUtils.setField(filter, "retryAfterSeconds", 2);
+        filter.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testShedsExpensivePathsWhileAdmittingCheapReads() throws Exception {
+        List<Future<MockHttpServletResponse>> held = hold(EXPENSIVE, 5);
+
+        MockHttpServletResponse rejected = request(EXPENSIVE);
+        assertEquals(503, rejected.getStatus());
+        assertEquals("2", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(1, meterRegistry.get("http.concurrency.rejected").tag("priority", "expensive").counter().count());
+
+        MockHttpServletResponse admitted = request(CHEAP);
+        assertEquals(200, admitted.getStatus());
+
+        release.countDown();
+        for (Future<MockHttpServletResponse> response : held) {
+            assertEquals(200, response.get(5, TimeUnit.SECONDS).getStatus());
+        }
+        assertEquals(200, request(EXPENSIVE).getStatus());
+    }
+
+    @Test
+    public void testRejectsCheapReadsAtFullLimitButNotActuator() throws Exception {
+        hold(EXPENSIVE, 5);
+        hold(CHEAP, 5);
+
+        MockHttpServletResponse rejected = request(CHEAP);
+        assertEquals(503, rejected.getStatus());
+        assertEquals(1, meterRegistry.get("http.concurrency.rejected").tag("priority", "critical").counter().count());
+
+        assertEquals(200, request("/actuator/health").getStatus());
+    }
+
+    /**
+     * Lanza peticiones que quedan en curso hasta {@code release} y espera a que todas entren.
+     */
+    private List<Future<MockHttpServletResponse>> hold(String path, int count) throws InterruptedException {
+        CountDownLatch entered = new CountDownLatch(count);
+        List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            responses.add(executor.submit(() -> {
+                MockHttpServletResponse response = new MockHttpServletResponse();
+                filter.doFilter(new MockHttpServletRequest("POST", path), response, (req, res) -> {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                return response;
+            }));
+        }
+        assertTrue(entered.await(5, TimeUnit.SECONDS), "las peticiones retenidas no llegaron a la cadena");
+        return responses;
+    }
+
+    private MockHttpServletResponse request(String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FilterChain chain = (req, res) -> { };
+        filter.doFilter(new MockHttpServletRequest("GET", path), response, chain);
+        return response;
+    }
+}
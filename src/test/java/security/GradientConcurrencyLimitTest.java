@@ -0,0 +1,69 @@
+package security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import main.security.GradientConcurrencyLimit;
+
+public class GradientConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    public void testShrinksWhenLatencyRisesAndGrowsWhenItRecovers() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(50, 10, 500);
+
+        saturate(limit, FAST, 100);
+        int healthy = limit.getLimit();
+        assertTrue(healthy > 50, "con latencia estable el límite crece: " + healthy);
+
+        saturate(limit, SLOW, 20);
+        int degraded = limit.getLimit();
+        assertTrue(degraded < healthy / 2, "al subir la latencia el límite cae: " + healthy + " -> " + degraded);
+
+        saturate(limit, FAST, 100);
+        assertTrue(limit.getLimit() > degraded, "al recuperarse la latencia el límite vuelve a crecer: "
+                + degraded + " -> " + limit.getLimit());
+    }
+
+    @Test
+    public void testStaysWithinBounds() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(50, 10, 60);
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(FAST, limit.getLimit());
+            assertTrue(limit.getLimit() <= 60);
+        }
+        assertEquals(60, limit.getLimit());
+
+        for (int i = 0; i < 1000; i++) {
+            limit.onSample(TimeUnit.SECONDS.toNanos(10), limit.getLimit());
+            assertTrue(limit.getLimit() >= 10 && limit.getLimit() <= 60);
+        }
+
+        assertEquals(10, new GradientConcurrencyLimit(1, 10, 60).getLimit());
+        assertEquals(60, new GradientConcurrencyLimit(1000, 10, 60).getLimit());
+        assertThrows(IllegalArgumentException.class, () -> new GradientConcurrencyLimit(50, 0, 60));
+        assertThrows(IllegalArgumentException.class, () -> new GradientConcurrencyLimit(50, 70, 60));
+    }
+
+    @Test
+    public void testDoesNotGrowUnderLowLoad() {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(50, 10, 500);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(FAST, 1);
+        }
+        assertEquals(50, limit.getLimit());
+    }
+
+    private static void saturate(GradientConcurrencyLimit limit, long rttNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            limit.onSample(rttNanos, limit.getLimit());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import main.security.JwtTokenMinter;
+
+public class JwtTokenMinterTest {
+
+    private static final long EXPIRATION = 3600000;
+    private static final SecretKey KEY =
+            Keys.hmacShaKeyFor("fernandocl1234567890abcdef1234567890".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    public void testMatchesJjwtBuilderByteForByte() {
+        JwtTokenMinter minter = new JwtTokenMinter(KEY, EXPIRATION);
+        long now = 1760000000123L;
+
+        for (String username : new String[] { "testuser", "José Pérez", "a\"b\\c", "tab\tnl\n\u0001", "emoji😀" }) {
+            String expected = jjwtToken(username, now);
+            String actual = minter.mint(username, now);
+
+            assertEquals(expected, actual);
+            String subject = Jwts.parserBuilder().setSigningKey(KEY).build()
+                    .parseClaimsJws(actual).getBody().getSubject();
+            assertEquals(username, subject);
+        }
+        // Surrogate suelto: Jackson lo escapa igual que los pares / Lone surrogate: escaped like pairs
+        assertEquals(jjwtToken("lone\uD800x", now), minter.mint("lone\uD800x", now));
+    }
+
+    @Test
+    public void testAllocatesLessThanJjwtBuilder(TestReporter reporter) {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        JwtTokenMinter minter = new JwtTokenMinter(KEY, EXPIRATION);
+        int iterations = 20_000;
+        long threadId = Thread.currentThread().getId();
+
+        // Calentamiento / Warm-up
+        for (int i = 0; i < iterations; i++) {
+            jjwtToken("testuser", System.currentTimeMillis());
+            minter.mint("testuser", System.currentTimeMillis());
+        }
+
+        long start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            jjwtToken("testuser", System.currentTimeMillis());
+        }
+        long jjwtBytes = (threads.getThreadAllocatedBytes(threadId) - start) / iterations;
+
+        start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            minter.mint("testuser", System.currentTimeMillis());
+        }
+        long minterBytes = (threads.getThreadAllocatedBytes(threadId) - start) / iterations;
+
+        reporter.publishEntry(Map.of("jjwt.bytesPerToken", String.valueOf(jjwtBytes),
+                "minter.bytesPerToken", String.valueOf(minterBytes)));
+        assertTrue(minterBytes < jjwtBytes,
+                "Bytes asignados por token - jjwt: " + jjwtBytes + ", minter: " + minterBytes);
+    }
+
+    private static String jjwtToken(String username, long now) {
+        return Jwts.builder()
+                .setSubject(username)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + EXPIRATION))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
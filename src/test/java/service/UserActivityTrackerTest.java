@@ -0,0 +1,117 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import main.service.UserActivityTracker;
+
+public class UserActivityTrackerTest {
+
+    private static final String CREATE_USERS =
+            "CREATE TABLE \"users\" (id BIGINT PRIMARY KEY, last_login TIMESTAMP, last_seen TIMESTAMP)";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JdbcTemplate jdbcTemplate;
+    private UserActivityTracker tracker;
+
+    @BeforeEach
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:activity-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute(CREATE_USERS);
+        for (long id = 1; id <= 3; id++) {
+            jdbcTemplate.update("INSERT INTO \"users\" (id) VALUES (?)", id);
+        }
+
+        tracker = new UserActivityTracker();
+        ReflectionTestUtils.setField(tracker, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(tracker, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(tracker, "maxPending", 2);
+        ReflectionTestUtils.setField(tracker, "batchSize", 1000);
+        tracker.init();
+    }
+
+    @Test
+    public void testCoalescesRepeatedActivityIntoOneEntry() {
+        tracker.recordSeen(1);
+        tracker.recordLogin(1);
+        tracker.recordSeen(1);
+
+        assertEquals(1, gauge("user.activity.pending"));
+
+        tracker.flush();
+
+        assertEquals(0, gauge("user.activity.pending"));
+        assertEquals(0, gauge("user.activity.flush.lag"));
+        assertNotNull(column(1, "last_login"));
+        assertNotNull(column(1, "last_seen"));
+        assertNull(column(2, "last_seen"));
+    }
+
+    @Test
+    public void testMaxPendingDropsNewUsersButKeepsKnownOnes() {
+        tracker.recordSeen(1);
+        tracker.recordSeen(2);
+        tracker.recordSeen(3);
+        tracker.recordLogin(1);
+
+        assertEquals(2, gauge("user.activity.pending"));
+        assertEquals(1, meterRegistry.get("user.activity.dropped").counter().count());
+
+        tracker.flush();
+
+        assertNotNull(column(1, "last_login"));
+        assertNotNull(column(2, "last_seen"));
+        assertNull(column(3, "last_seen"));
+    }
+
+    @Test
+    public void testFailedFlushKeepsActivityForRetry() {
+        tracker.recordLogin(1);
+        jdbcTemplate.execute("DROP TABLE \"users\"");
+
+        tracker.flush();
+
+        assertEquals(1, gauge("user.activity.pending"));
+        assertEquals(1, meterRegistry.get("user.activity.failed").counter().count());
+
+        jdbcTemplate.execute(CREATE_USERS);
+        jdbcTemplate.update("INSERT INTO \"users\" (id) VALUES (1)");
+        tracker.flush();
+
+        assertEquals(0, gauge("user.activity.pending"));
+        assertNotNull(column(1, "last_login"));
+    }
+
+    @Test
+    public void testEmptyFlushResetsStaleLag() {
+        // Simula un record() cuyo marcado llegó después de que un volcado concurrente retirara su entrada
+        AtomicLong oldest = (AtomicLong) ReflectionTestUtils.getField(tracker, "oldestPendingMillis");
+        oldest.set(System.currentTimeMillis() - 60_000);
+
+        assertEquals(0, gauge("user.activity.flush.lag"));
+        tracker.flush();
+        assertEquals(0, oldest.get());
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    private Timestamp column(long id, String column) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM \"users\" WHERE id = ?", Timestamp.class, id);
+    }
+}
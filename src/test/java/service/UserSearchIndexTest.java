@@ -0,0 +1,141 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import main.dto.UserDTO;
+import main.service.UserSearchIndex;
+
+public class UserSearchIndexTest {
+
+    private UserSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = newIndex(null);
+        index.add(1, "Ana", "ana@example.com");
+        index.add(2, "andrés", "andres.perez@example.com");
+        index.add(3, "bruno", "ANA.bruno@example.com");
+    }
+
+    @Test
+    public void testPrefixMatchesUsernameAndEmail() {
+        assertEquals(List.of(2L), ids(index.search("andr", 10)));
+        assertEquals(List.of(3L), ids(index.search("ana.b", 10)));
+        assertEquals(List.of(3L), ids(index.search("bru", 10)));
+        assertTrue(index.search("zz", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void testNormalizesAccentsAndCase() {
+        assertEquals("andres", UserSearchIndex.normalize("  Andrés "));
+        assertEquals(List.of(2L), ids(index.search("ANDRÉ", 10)));
+        assertEquals(List.of(2L), ids(index.search("andre", 10)));
+    }
+
+    @Test
+    public void testDeduplicatesUserMatchedByBothKeys() {
+        // "ana" coincide con el nombre y el email del usuario 1 y con el email del usuario 3
+        List<Long> ids = ids(index.search("ana", 10));
+        assertEquals(2, ids.size());
+        assertTrue(ids.containsAll(List.of(1L, 3L)));
+    }
+
+    @Test
+    public void testRespectsLimit() {
+        assertEquals(1, index.search("an", 1).size());
+        assertEquals(3, index.search("an", 10).size());
+        assertTrue(index.search("an", 0).isEmpty());
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        index.add(4, "carla", "carla@example.com");
+        assertEquals(List.of(4L), ids(index.search("car", 10)));
+
+        index.remove(4L);
+        assertTrue(index.search("car", 10).isEmpty());
+
+        index.remove(List.of(1L, 3L));
+        assertEquals(List.of(2L), ids(index.search("an", 10)));
+    }
+
+    @Test
+    public void testAdditionsBeyondTheDeltaAreMergedAndStaySearchable() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        UserSearchIndex large = newIndex(null, meterRegistry);
+        int users = 5000;
+        for (int i = 1; i <= users; i++) {
+            large.add(i, "user" + i, "mail" + i + "@example.com");
+        }
+        large.remove(List.of(10L, 4999L));
+
+        // 2 claves por usuario; el delta nunca supera su umbral de fusión
+        assertEquals(2.0 * (users - 2), meterRegistry.get("user.search.index.entries").gauge().value());
+        assertTrue(meterRegistry.get("user.search.index.delta").gauge().value() < 1024);
+
+        // "user10" abarca user10 y user100..user1099 menos el eliminado, desde el arreglo principal y el delta
+        List<Long> ids = ids(large.search("user10", users));
+        assertEquals(110, ids.size());
+        assertTrue(!ids.contains(10L) && ids.contains(100L) && ids.contains(1099L));
+        List<String> names = large.search("user4", users).stream().map(UserDTO::getUserName).collect(Collectors.toList());
+        assertEquals(names.stream().sorted().collect(Collectors.toList()), names);
+        assertTrue(!names.contains("user4999") && names.contains("user4998"));
+    }
+
+    @Test
+    public void testRebuildKeepsChangesMadeWhileReadingTable() {
+        JdbcTemplate h2 = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:search-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        h2.execute("CREATE TABLE \"users\" (id BIGINT PRIMARY KEY, user_name VARCHAR(255), email VARCHAR(255), deleted_at TIMESTAMP)");
+        h2.update("INSERT INTO \"users\" (id, user_name, email) VALUES (1, 'ana', 'ana@example.com')");
+        h2.update("INSERT INTO \"users\" (id, user_name, email) VALUES (2, 'andres', 'andres@example.com')");
+        h2.update("INSERT INTO \"users\" (id, user_name, email, deleted_at) VALUES (3, 'anabel', 'anabel@example.com', CURRENT_TIMESTAMP)");
+
+        UserSearchIndex[] holder = new UserSearchIndex[1];
+        JdbcTemplate racing = new JdbcTemplate(h2.getDataSource()) {
+            @Override
+            public void query(String sql, RowCallbackHandler rch) {
+                super.query(sql, rch);
+                // Registro y baja concurrentes que la lectura no vio
+                holder[0].add(4, "antonia", "antonia@example.com");
+                holder[0].remove(2L);
+            }
+        };
+        holder[0] = newIndex(racing);
+        holder[0].rebuild();
+
+        List<Long> ids = ids(holder[0].search("an", 10));
+        assertEquals(2, ids.size());
+        assertTrue(ids.containsAll(List.of(1L, 4L)));
+    }
+
+    private static UserSearchIndex newIndex(JdbcTemplate jdbcTemplate) {
+        return newIndex(jdbcTemplate, new SimpleMeterRegistry());
+    }
+
+    private static UserSearchIndex newIndex(JdbcTemplate jdbcTemplate, SimpleMeterRegistry meterRegistry) {
+        UserSearchIndex index = new UserSearchIndex();
+        ReflectionTestUtils.setField(index, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(index, "meterRegistry", meterRegistry);
+        index.init();
+        return index;
+    }
+
+    private static List<Long> ids(List<UserDTO> users) {
+        return users.stream().map(UserDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -2,12 +2,20 @@ package service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import main.exception.BreachedPasswordException;
 import main.repository.UserRepository;
+import main.security.BreachedPasswordFilter;
+import main.service.LoginAuditService;
+import main.service.UserActivityTracker;
 import main.service.UserService;
 import main.dto.UserDTO;
 import main.entity.User;
@@ -46,4 +54,55 @@ public class UserServiceTest {
         assertNotNull(user);
         assertEquals("testuser", user.getUserName());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLoginRecordsOutcome() {
+        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+        User stored = new User();
+        stored.setId(7L);
+        stored.setUserName("testuser");
+        stored.setPassword(passwordEncoder.encode("123456"));
+
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findByUserName("testuser")).thenReturn(Optional.of(stored));
+        LoginAuditService loginAuditService = Mockito.mock(LoginAuditService.class);
+        UserActivityTracker userActivityTracker = Mockito.mock(UserActivityTracker.class);
+
+        UserService userService = new UserService();
+        userService.userRepository = userRepository;
+        userService.passwordEncoder = passwordEncoder;
+        userService.loginAuditService = loginAuditService;
+        userService.userActivityTracker = userActivityTracker;
+
+        // Contraseña correcta: éxito auditado y último login registrado
+        assertEquals(stored, userService.login("testuser", "123456", "10.0.0.1"));
+        Mockito.verify(loginAuditService).recordLogin("testuser", "10.0.0.1", true);
+        Mockito.verify(userActivityTracker).recordLogin(7L);
+
+        // Contraseña incorrecta: fallo auditado y sin último login
+        assertThrows(BadCredentialsException.class, () -> userService.login("testuser", "incorrecta", "10.0.0.2"));
+        Mockito.verify(loginAuditService).recordLogin("testuser", "10.0.0.2", false);
+        Mockito.verifyNoMoreInteractions(userActivityTracker);
+    }
+
+    @Test
+    public void testRegisterRejectsBreachedPassword() {
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        BreachedPasswordFilter breachedPasswordFilter = Mockito.mock(BreachedPasswordFilter.class);
+        Mockito.when(breachedPasswordFilter.isBreached("password123")).thenReturn(true);
+
+        UserService userService = new UserService();
+        userService.userRepository = userRepository;
+        userService.passwordEncoder = new BCryptPasswordEncoder();
+        userService.breachedPasswordFilter = breachedPasswordFilter;
+
+        UserDTO userDTO = new UserDTO();
+        userDTO.setUserName("testuser");
+        userDTO.setEmail("test@example.com");
+        userDTO.setPassword("password123");
+
+        // Se rechaza antes de consultar o guardar nada
+        assertThrows(BreachedPasswordException.class, () -> userService.registerUser(userDTO));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+}
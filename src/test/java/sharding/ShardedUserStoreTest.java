@@ -0,0 +1,262 @@
+package sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import main.entity.User;
+import main.exception.UserAlreadyExistsException;
+import main.sharding.ShardedUserStore;
+
+public class ShardedUserStoreTest {
+
+    private static final int USERS = 300;
+
+    @Test
+    public void testRoutesAndEnforcesUniquenessAcrossShards() {
+        try (ShardedUserStore store = new ShardedUserStore(List.of(h2(), h2()), 32)) {
+            registerUsers(store);
+
+            assertTrue(store.countUsers(0) > 0);
+            assertTrue(store.countUsers(1) > 0);
+            assertEquals(USERS, store.countUsers(0) + store.countUsers(1));
+
+            assertEquals("user42", store.findByUserName("USER42").get().getUserName());
+            assertEquals("user42", store.findByEmail("user42@example.com").get().getUserName());
+
+            // Mismo nombre con otras mayúsculas y mismo email con otro nombre
+            assertThrows(UserAlreadyExistsException.class, () -> store.register(user("User7", "other@example.com")));
+            assertThrows(UserAlreadyExistsException.class, () -> store.register(user("other", "user7@example.com")));
+            // La reserva del email rechazado se liberó
+            store.register(user("other", "other@example.com"));
+
+            assertEquals(USERS + 1, store.findAll().size());
+            assertEquals(USERS + 1, store.findByRole("USER").size());
+        }
+    }
+
+    @Test
+    public void testAddShardRebalancesOnline() {
+        try (ShardedUserStore store = new ShardedUserStore(List.of(h2(), h2()), 32)) {
+            registerUsers(store);
+
+            int moved = store.addShard(h2());
+
+            assertEquals(3, store.shardCount());
+            assertTrue(moved > 0);
+            assertEquals(moved, store.countUsers(2));
+            assertEquals(USERS, store.countUsers(0) + store.countUsers(1) + store.countUsers(2));
+            for (int i = 0; i < USERS; i++) {
+                assertTrue(store.findByUserName("user" + i).isPresent(), "user" + i);
+            }
+            assertEquals(USERS, store.findAll().size());
+        }
+    }
+
+    @Test
+    public void testRegistrationsDuringRebalanceAreNeverStranded() throws Exception {
+        try (ShardedUserStore store = new ShardedUserStore(List.of(h2(), h2()), 32)) {
+            registerUsers(store);
+            int concurrent = 600;
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread registrar = new Thread(() -> {
+                try {
+                    for (int i = USERS; i < USERS + concurrent; i++) {
+                        store.register(user("user" + i, "user" + i + "@example.com"));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            registrar.start();
+            store.addShard(h2());
+            registrar.join();
+
+            assertNull(failure.get());
+            int total = USERS + concurrent;
+            assertEquals(total, store.countUsers(0) + store.countUsers(1) + store.countUsers(2));
+            for (int i = 0; i < total; i++) {
+                assertTrue(store.findByUserName("user" + i).isPresent(), "user" + i);
+            }
+        }
+    }
+
+    @Test
+    public void testReadsDuringRebalanceNeverMissAUser() throws Exception {
+        try (ShardedUserStore store = new ShardedUserStore(List.of(h2(), h2()), 32)) {
+            registerUsers(store);
+            AtomicBoolean rebalancing = new AtomicBoolean(true);
+            AtomicReference<String> missing = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                while (rebalancing.get() && missing.get() == null) {
+                    for (int i = 0; i < USERS; i++) {
+                        if (store.findByUserName("user" + i).isEmpty()) {
+                            missing.compareAndSet(null, "user" + i);
+                        }
+                    }
+                }
+            });
+            reader.start();
+            store.addShard(h2());
+            rebalancing.set(false);
+            reader.join();
+
+            assertNull(missing.get());
+        }
+    }
+
+    @Test
+    public void testDeleteByIdsRemovesRowsAndReleasesEmails() {
+        try (ShardedUserStore store = new ShardedUserStore(List.of(h2(), h2()), 32)) {
+            registerUsers(store);
+            long id = store.findByUserName("user5").get().getId();
+            long otherId = store.findByUserName("user6").get().getId();
+
+            assertEquals(2, store.deleteByIds(List.of(id, otherId, -1L)));
+
+            assertFalse(store.findByUserName("user5").isPresent());
+            assertFalse(store.existsByEmail("user6@example.com"));
+            assertEquals(USERS - 2, store.findAll().size());
+            // El nombre y el email vuelven a estar libres
+            store.register(user("user5", "user5@example.com"));
+        }
+    }
+
+    @Test
+    public void testDeletesDuringRebalanceAreNotCopiedBack() throws Exception {
+        try (ShardedUserStore store = new ShardedUserStore(List.of(h2(), h2()), 32)) {
+            registerUsers(store);
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < USERS; i += 2) {
+                ids.add(store.findByUserName("user" + i).get().getId());
+            }
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread deleter = new Thread(() -> {
+                try {
+                    for (Long id : ids) {
+                        store.deleteByIds(List.of(id));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            deleter.start();
+            store.addShard(h2());
+            deleter.join();
+
+            assertNull(failure.get());
+            assertEquals(USERS - ids.size(), store.findAll().size());
+            for (int i = 0; i < USERS; i++) {
+                assertEquals(i % 2 != 0, store.findByUserName("user" + i).isPresent(), "user" + i);
+            }
+        }
+    }
+
+    @Test
+    public void testFailedMigrationKeepsUsersReachableUntilResumed() {
+        AtomicBoolean failInserts = new AtomicBoolean();
+        try (ShardedUserStore store = new ShardedUserStore(List.of(h2(), h2()), 32)) {
+            registerUsers(store);
+            failInserts.set(true);
+
+            assertThrows(RuntimeException.class, () -> store.addShard(failingInserts(failInserts)));
+            assertTrue(store.hasPendingMigrations());
+            for (int i = 0; i < USERS; i++) {
+                String userName = "user" + i;
+                assertTrue(store.findByUserName(userName).isPresent(), userName);
+                // Nadie puede tomar el nombre de un usuario que sigue en el shard de origen
+                assertThrows(UserAlreadyExistsException.class,
+                        () -> store.register(user(userName, userName + "@other.com")));
+            }
+
+            failInserts.set(false);
+            store.resumeMigrations();
+
+            assertFalse(store.hasPendingMigrations());
+            assertEquals(USERS, store.countUsers(0) + store.countUsers(1) + store.countUsers(2));
+            assertTrue(store.countUsers(2) > 0);
+            for (int i = 0; i < USERS; i++) {
+                assertTrue(store.findByUserName("user" + i).isPresent(), "user" + i);
+            }
+        }
+    }
+
+    @Test
+    public void testActivityIsStoredOnTheOwningShardAndSurvivesRebalance() {
+        try (ShardedUserStore store = new ShardedUserStore(List.of(h2(), h2()), 32)) {
+            registerUsers(store);
+            Timestamp seen = Timestamp.from(Instant.parse("2025-11-24T10:00:00Z"));
+            List<Object[]> args = new ArrayList<>();
+            for (int i = 0; i < USERS; i++) {
+                args.add(new Object[] { null, seen, store.findByUserName("user" + i).get().getId() });
+            }
+
+            store.updateActivity(args);
+            store.addShard(h2());
+
+            for (int i = 0; i < USERS; i++) {
+                assertEquals(seen.toInstant(), store.findByUserName("user" + i).get().getLastSeen(), "user" + i);
+            }
+        }
+    }
+
+    private static void registerUsers(ShardedUserStore store) {
+        for (int i = 0; i < USERS; i++) {
+            store.register(user("user" + i, "user" + i + "@example.com"));
+        }
+    }
+
+    private static User user(String userName, String email) {
+        User user = new User();
+        user.setUserName(userName);
+        user.setEmail(email);
+        user.setPassword("hash");
+        user.setRole(new ArrayList<>(List.of("USER")));
+        return user;
+    }
+
+    private static DataSource h2() {
+        return new DriverManagerDataSource("jdbc:h2:mem:shard-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    /** Shard que rechaza las inserciones de usuarios mientras {@code fail} esté activo */
+    private static DataSource failingInserts(AtomicBoolean fail) {
+        return new DriverManagerDataSource("jdbc:h2:mem:shard-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "") {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection connection = super.getConnection();
+                return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                        new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                            if (fail.get() && method.getName().equals("prepareStatement")
+                                    && ((String) args[0]).startsWith("INSERT INTO sharded_users")) {
+                                throw new SQLException("Fallo simulado");
+                            }
+                            try {
+                                return method.invoke(connection, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+    }
+}